@@ -0,0 +1,110 @@
+package badgerutils.statemachine;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Enums and rule sets shared by the state machine benchmarks
+ */
+public final class BenchmarkStates {
+
+    private BenchmarkStates() {}
+
+    public enum States4 {
+        S0, S1, S2, S3
+    }
+
+    public enum States16 {
+        S0, S1, S2, S3, S4, S5, S6, S7, S8, S9, S10, S11, S12, S13, S14, S15
+    }
+
+    public enum States64 {
+        S0, S1, S2, S3, S4, S5, S6, S7, S8, S9, S10, S11, S12, S13, S14, S15,
+        S16, S17, S18, S19, S20, S21, S22, S23, S24, S25, S26, S27, S28, S29, S30, S31,
+        S32, S33, S34, S35, S36, S37, S38, S39, S40, S41, S42, S43, S44, S45, S46, S47,
+        S48, S49, S50, S51, S52, S53, S54, S55, S56, S57, S58, S59, S60, S61, S62, S63
+    }
+
+    /**
+     * How many rules are registered for each state
+     */
+    public enum RuleDensity {
+        /** A single 'state to state' rule from each state to the next one, plus one 'any to state' rule */
+        SPARSE,
+        /** Every kind of rule for every state, plus 'states to states' and 'any to any' rules over all states */
+        DENSE
+    }
+
+    /**
+     * A benchmark body that is generic over the enum it runs on
+     * @param <R> the result type
+     */
+    public interface StateCountFunction<R> {
+        <T extends Enum<T>> R apply(Class<T> enumType);
+    }
+
+    /**
+     * Calls {@code function} with the enum class with {@code stateCount} constants
+     * @param stateCount the number of constants, one of 4, 16 or 64
+     * @param function the function to call
+     * @return the result of {@code function}
+     */
+    public static <R> R withStates(int stateCount, StateCountFunction<R> function) {
+        return switch (stateCount) {
+            case 4 -> function.apply(States4.class);
+            case 16 -> function.apply(States16.class);
+            case 64 -> function.apply(States64.class);
+            default -> throw new IllegalArgumentException("No benchmark enum with " + stateCount + " states");
+        };
+    }
+
+    /**
+     * Creates the edges for a benchmark. Every edge is cheap, so the cost measured is the dispatch itself
+     */
+    public static <T extends Enum<T>> Edges<T> createEdges(Class<T> enumType, RuleDensity density) {
+        T[] states = enumType.getEnumConstants();
+        Edges<T> edges = new Edges<>();
+        StateEdge<T> edge = transition -> {};
+
+        edges.anyToState(states[0], edge);
+        for (int i = 0; i < states.length; i++) {
+            edges.stateToState(states[i], states[(i + 1) % states.length], edge);
+        }
+
+        if (density == RuleDensity.DENSE) {
+            Set<T> all = EnumSet.allOf(enumType);
+            edges.multipleStatesToMultipleStates(all, all, edge);
+            for (T state : states) {
+                edges.stateToAny(state, edge);
+                edges.anyToState(state, edge);
+            }
+            edges.anyToAny(edge);
+        }
+        return edges;
+    }
+
+    /**
+     * Creates the guards for a benchmark. Every guard allows the transition, so every guard is evaluated
+     */
+    public static <T extends Enum<T>> Guards<T> createGuards(Class<T> enumType, RuleDensity density) {
+        T[] states = enumType.getEnumConstants();
+        Guards<T> guards = new Guards<>();
+        StateGuardCondition<T> guard = transition -> true;
+
+        guards.stateToAny(states[0], guard);
+        for (int i = 0; i < states.length; i++) {
+            guards.stateToState(states[i], states[(i + 1) % states.length], guard);
+        }
+
+        if (density == RuleDensity.DENSE) {
+            Set<T> all = EnumSet.allOf(enumType);
+            guards.multipleStatesToMultipleStates(all, all, guard);
+            for (T state : states) {
+                guards.stateToAny(state, guard);
+                guards.anyToState(state, guard);
+            }
+            guards.anyToAny(guard);
+        }
+        return guards;
+    }
+}
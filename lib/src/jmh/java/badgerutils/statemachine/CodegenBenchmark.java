@@ -0,0 +1,107 @@
+package badgerutils.statemachine;
+
+import badgerutils.statemachine.codegen.Edge;
+import badgerutils.statemachine.codegen.Guard;
+import badgerutils.statemachine.codegen.StateMachineSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a {@link StateMachine} built from lambdas with the class generated from {@link PhaseSpec} by
+ * {@link badgerutils.statemachine.codegen.StateMachineProcessor}, running the same guards and edges.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodegenBenchmark {
+    public enum Phase { IDLE, INTAKING, HOLDING, SCORING }
+
+    @StateMachineSpec(Phase.class)
+    public static class PhaseSpec {
+        private long edgeCount;
+        private double sensor = 1;
+
+        @Guard(from = "IDLE", to = "INTAKING")
+        boolean hasNoGamePiece() {
+            return sensor > 0;
+        }
+
+        @Guard(from = "HOLDING", to = "SCORING")
+        boolean isAtTarget() {
+            return sensor < 2;
+        }
+
+        @Guard(from = {"INTAKING", "HOLDING"})
+        boolean isNotJammed(Phase previousState, Phase nextState) {
+            return previousState != nextState;
+        }
+
+        @Guard
+        boolean isEnabled() {
+            return sensor != 0;
+        }
+
+        @Edge(to = "INTAKING")
+        void startRollers() {
+            edgeCount++;
+        }
+
+        @Edge(from = "SCORING")
+        void resetScoring(Phase previousState, Phase nextState) {
+            edgeCount += nextState.ordinal();
+        }
+
+        @Edge
+        void countTransition() {
+            edgeCount++;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private StateMachine<Phase> stateMachine;
+    private PhaseSpecStateMachine generated;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PhaseSpec spec = new PhaseSpec();
+        Set<Phase> intakingOrHolding = Set.of(Phase.INTAKING, Phase.HOLDING);
+        stateMachine = new StateMachine<>(Phase.IDLE,
+                new Edges<Phase>()
+                        .anyToState(Phase.INTAKING, transition -> spec.startRollers())
+                        .stateToAny(Phase.SCORING, transition -> spec.resetScoring(transition.previousState(), transition.nextState()))
+                        .anyToAny(transition -> spec.countTransition()),
+                new Guards<Phase>()
+                        .stateToState(Phase.IDLE, Phase.INTAKING, transition -> spec.hasNoGamePiece())
+                        .stateToState(Phase.HOLDING, Phase.SCORING, transition -> spec.isAtTarget())
+                        .multipleStatesToMultipleStates(intakingOrHolding, Set.of(),
+                                transition -> spec.isNotJammed(transition.previousState(), transition.nextState()))
+                        .anyToAny(transition -> spec.isEnabled()));
+        generated = new PhaseSpecStateMachine(spec, Phase.IDLE);
+    }
+
+    @Benchmark
+    public boolean stateMachine() {
+        return stateMachine.tryChangeState(PHASES[(stateMachine.getCurrentState().ordinal() + 1) % PHASES.length]);
+    }
+
+    @Benchmark
+    public boolean generated() {
+        return generated.tryChangeState(PHASES[(generated.getCurrentState().ordinal() + 1) % PHASES.length]);
+    }
+}
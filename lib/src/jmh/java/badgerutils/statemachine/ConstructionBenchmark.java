@@ -0,0 +1,57 @@
+package badgerutils.statemachine;
+
+import badgerutils.statemachine.BenchmarkStates.RuleDensity;
+import badgerutils.statemachine.BenchmarkStates.StateCountFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost and allocation of building {@link Edges} and {@link Guards}, and of compiling them into a {@link StateMachine}.
+ * <p>
+ *     {@code gc.alloc.rate.norm} of {@link #buildRules()} is the memory used by the rules themselves,
+ *     which grows with the number of rules rather than the number of transitions they cover.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstructionBenchmark {
+    @Param({"4", "16", "64"})
+    public int stateCount;
+
+    @Param({"SPARSE", "DENSE"})
+    public RuleDensity ruleDensity;
+
+    @Benchmark
+    public Object buildRules() {
+        return BenchmarkStates.withStates(stateCount, new StateCountFunction<>() {
+            @Override
+            public <T extends Enum<T>> Object apply(Class<T> enumType) {
+                return new Object[]{BenchmarkStates.createEdges(enumType, ruleDensity), BenchmarkStates.createGuards(enumType, ruleDensity)};
+            }
+        });
+    }
+
+    @Benchmark
+    public StateMachine<?> buildStateMachine() {
+        return BenchmarkStates.withStates(stateCount, new StateCountFunction<StateMachine<?>>() {
+            @Override
+            public <T extends Enum<T>> StateMachine<?> apply(Class<T> enumType) {
+                return new StateMachine<>(enumType.getEnumConstants()[0],
+                        BenchmarkStates.createEdges(enumType, ruleDensity), BenchmarkStates.createGuards(enumType, ruleDensity));
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package badgerutils.statemachine;
+
+import badgerutils.statemachine.BenchmarkStates.RuleDensity;
+import badgerutils.statemachine.BenchmarkStates.StateCountFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-call cost and allocation of the hot paths of the statemachine package.
+ * <p>
+ *     {@link #getEdges()} and {@link #getGuards()} measure the lookups of the {@link CompiledEdges} and {@link CompiledGuards}
+ *     that {@link StateMachine#tryChangeState(Enum)} uses, not the rule lists of {@link Edges} and {@link Guards}.
+ * <p>
+ *     Run with {@code ./gradlew :lib:jmh}. The GC profiler is enabled in {@code lib/build.gradle}, so every result
+ *     also reports {@code gc.alloc.rate.norm}, the bytes allocated per call. The results are written to
+ *     {@code lib/jmh-results/results-<version>.json}, which is committed for each release.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateMachineBenchmark {
+    @Param({"4", "16", "64"})
+    public int stateCount;
+
+    @Param({"SPARSE", "DENSE"})
+    public RuleDensity ruleDensity;
+
+    private Fixture<?> fixture;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fixture = BenchmarkStates.withStates(stateCount, new StateCountFunction<Fixture<?>>() {
+            @Override
+            public <T extends Enum<T>> Fixture<?> apply(Class<T> enumType) {
+                return new Fixture<>(enumType, ruleDensity);
+            }
+        });
+    }
+
+    @Benchmark
+    public boolean tryChangeState() {
+        return fixture.tryChangeState();
+    }
+
+    @Benchmark
+    public boolean canChangeState() {
+        return fixture.canChangeState();
+    }
+
+    @Benchmark
+    public StateEdge<?>[] getEdges() {
+        return fixture.getEdges();
+    }
+
+    @Benchmark
+    public void getGuards(Blackhole blackhole) {
+        fixture.getGuards(blackhole);
+    }
+
+    @Benchmark
+    public List<?> expandToTransitions() {
+        return fixture.expandToTransitions();
+    }
+
+    private static final class Fixture<T extends Enum<T>> {
+        private final T[] states;
+        private final CompiledEdges<T> edges;
+        private final CompiledGuards<T> guards;
+        private final StateMachine<T> stateMachine;
+        private final PartialTransition<T> partialTransition;
+        private final Transition<T>[] transitions;
+        private int index;
+
+        @SuppressWarnings("unchecked")
+        Fixture(Class<T> enumType, RuleDensity density) {
+            states = enumType.getEnumConstants();
+            Edges<T> ruleEdges = BenchmarkStates.createEdges(enumType, density);
+            Guards<T> ruleGuards = BenchmarkStates.createGuards(enumType, density);
+            stateMachine = new StateMachine<>(states[0], ruleEdges, ruleGuards);
+            edges = ruleEdges.compile(enumType);
+            guards = ruleGuards.compile(enumType);
+
+            Set<T> all = EnumSet.allOf(enumType);
+            partialTransition = density == RuleDensity.DENSE
+                    ? new PartialTransition<>(all, all)
+                    : new PartialTransition<>(Set.of(states[0]), Set.of(states[1]));
+
+            transitions = (Transition<T>[]) new Transition[states.length];
+            for (int i = 0; i < states.length; i++) {
+                transitions[i] = new Transition<>(states[i], states[(i + 1) % states.length]);
+            }
+        }
+
+        boolean tryChangeState() {
+            return stateMachine.tryChangeState(nextState());
+        }
+
+        boolean canChangeState() {
+            return stateMachine.canChangeState(nextState());
+        }
+
+        StateEdge<T>[] getEdges() {
+            return edges.getEdges(nextTransition());
+        }
+
+        /**
+         * Looks up the guards and their ids, as {@link StateMachine#tryChangeState(Enum)} does
+         */
+        void getGuards(Blackhole blackhole) {
+            Transition<T> transition = nextTransition();
+            blackhole.consume(guards.getGuards(transition));
+            blackhole.consume(guards.getGuardIds(transition.previousState(), transition.nextState()));
+        }
+
+        List<Transition<T>> expandToTransitions() {
+            return partialTransition.expandToTransitions();
+        }
+
+        private T nextState() {
+            return states[(stateMachine.getCurrentState().ordinal() + 1) % states.length];
+        }
+
+        private Transition<T> nextTransition() {
+            index = (index + 1) % transitions.length;
+            return transitions[index];
+        }
+    }
+}
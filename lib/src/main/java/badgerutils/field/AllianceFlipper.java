@@ -0,0 +1,145 @@
+package badgerutils.field;
+
+import badgerutils.triggers.AllianceCache;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Flips field geometry from the blue alliance to the red alliance, and keeps a registry of {@link AllianceValue}s up to
+ * date with the {@link AllianceCache}.
+ * <p>
+ *     Geometry is defined once for the blue alliance. When the alliance changes, every registered value switches to its
+ *     version for the new alliance, so code that reads the values every cycle never flips anything itself.
+ */
+public final class AllianceFlipper {
+    /**
+     * How the field of the red alliance relates to the field of the blue alliance
+     */
+    public enum Symmetry {
+        /**
+         * The field is rotated by 180 degrees around its center
+         */
+        ROTATIONAL,
+        /**
+         * The field is mirrored across the center line
+         */
+        MIRRORED
+    }
+
+    private final double fieldLengthMeters;
+    private final double fieldWidthMeters;
+    private final Symmetry symmetry;
+    private final List<AllianceValue<?>> values = new ArrayList<>();
+    private boolean red;
+
+    /**
+     * Creates a new {@link AllianceFlipper}, updating its values every time the alliance of the {@link AllianceCache} changes.
+     * <p>The cache only changes when {@link AllianceCache#update()} is called, once per cycle at the start of {@code robotPeriodic()}</p>
+     * @param fieldLengthMeters the length of the field, along the x-axis
+     * @param fieldWidthMeters the width of the field, along the y-axis
+     * @param symmetry the symmetry of the field
+     */
+    public AllianceFlipper(double fieldLengthMeters, double fieldWidthMeters, Symmetry symmetry) {
+        this(fieldLengthMeters, fieldWidthMeters, symmetry, AllianceCache.isRedAlliance());
+        AllianceCache.addListener(this::update);
+    }
+
+    /**
+     * Creates a new {@link AllianceFlipper} that is only updated by {@link #update(boolean)}, not by the {@link AllianceCache}
+     */
+    AllianceFlipper(double fieldLengthMeters, double fieldWidthMeters, Symmetry symmetry, boolean isRed) {
+        this.fieldLengthMeters = fieldLengthMeters;
+        this.fieldWidthMeters = fieldWidthMeters;
+        this.symmetry = symmetry;
+        this.red = isRed;
+    }
+
+    /**
+     * Flips a translation to the other alliance
+     * @param translation the translation to flip
+     * @return the flipped translation
+     */
+    public Translation2d flip(Translation2d translation) {
+        return switch (symmetry) {
+            case ROTATIONAL -> new Translation2d(fieldLengthMeters - translation.getX(), fieldWidthMeters - translation.getY());
+            case MIRRORED -> new Translation2d(fieldLengthMeters - translation.getX(), translation.getY());
+        };
+    }
+
+    /**
+     * Flips a rotation to the other alliance
+     * @param rotation the rotation to flip
+     * @return the flipped rotation
+     */
+    public Rotation2d flip(Rotation2d rotation) {
+        return switch (symmetry) {
+            case ROTATIONAL -> rotation.rotateBy(Rotation2d.kPi);
+            case MIRRORED -> new Rotation2d(-rotation.getCos(), rotation.getSin());
+        };
+    }
+
+    /**
+     * Flips a pose to the other alliance
+     * @param pose the pose to flip
+     * @return the flipped pose
+     */
+    public Pose2d flip(Pose2d pose) {
+        return new Pose2d(flip(pose.getTranslation()), flip(pose.getRotation()));
+    }
+
+    /**
+     * Registers a pose defined for the blue alliance
+     * @param bluePose the pose for the blue alliance
+     * @return the pose for the current alliance
+     */
+    public AllianceValue<Pose2d> pose(Pose2d bluePose) {
+        return register(bluePose, this::flip);
+    }
+
+    /**
+     * Registers a translation defined for the blue alliance
+     * @param blueTranslation the translation for the blue alliance
+     * @return the translation for the current alliance
+     */
+    public AllianceValue<Translation2d> translation(Translation2d blueTranslation) {
+        return register(blueTranslation, this::flip);
+    }
+
+    /**
+     * Registers a list of waypoints defined for the blue alliance
+     * @param blueWaypoints the waypoints for the blue alliance, in order
+     * @return the waypoints for the current alliance
+     */
+    public AllianceValue<List<Pose2d>> waypoints(List<Pose2d> blueWaypoints) {
+        return register(List.copyOf(blueWaypoints), waypoints -> {
+            List<Pose2d> flipped = new ArrayList<>(waypoints.size());
+            for (Pose2d waypoint : waypoints) flipped.add(flip(waypoint));
+            return List.copyOf(flipped);
+        });
+    }
+
+    /**
+     * Registers any value defined for the blue alliance
+     * @param blue the value for the blue alliance
+     * @param flip computes the value for the red alliance from the value for the blue alliance
+     * @return the value for the current alliance
+     * @param <V> the type of the value
+     */
+    public <V> AllianceValue<V> register(V blue, UnaryOperator<V> flip) {
+        AllianceValue<V> value = new AllianceValue<>(blue, flip, red);
+        values.add(value);
+        return value;
+    }
+
+    void update(boolean isRed) {
+        red = isRed;
+        for (int i = 0; i < values.size(); i++) {
+            values.get(i).update(isRed);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package badgerutils.field;
+
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * A piece of field geometry defined for the blue alliance, whose version for the current alliance is kept up to date by
+ * an {@link AllianceFlipper}.
+ * <p>
+ *     The red version is computed once, the first time the alliance changes to red, so {@link #get()} only reads a field.
+ * @param <V> the type of the geometry
+ */
+public final class AllianceValue<V> implements Supplier<V> {
+    private final V blue;
+    private final UnaryOperator<V> flip;
+    private V red;
+    private V current;
+
+    AllianceValue(V blue, UnaryOperator<V> flip, boolean isRed) {
+        this.blue = blue;
+        this.flip = flip;
+        update(isRed);
+    }
+
+    /**
+     * {@return the geometry for the current alliance}
+     */
+    @Override
+    public V get() {
+        return current;
+    }
+
+    /**
+     * {@return the geometry for the blue alliance}
+     */
+    public V getBlue() {
+        return blue;
+    }
+
+    /**
+     * {@return the geometry for the red alliance}
+     */
+    public V getRed() {
+        if (red == null) red = flip.apply(blue);
+        return red;
+    }
+
+    void update(boolean isRed) {
+        current = isRed ? getRed() : blue;
+    }
+}
@@ -0,0 +1,112 @@
+package badgerutils.networktables;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.networktables.StringSubscriber;
+import edu.wpi.first.networktables.Subscriber;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A dashboard selector over the constants of an enum, read through a {@link NetworkInputRegistry}.
+ * <p>
+ *     It is published in the same layout as a {@code SendableChooser}, so dashboards show it as a string chooser.
+ *     The option names are built once, and a selection is only matched against them when it changes on NetworkTables.
+ *     The selected value is resolved through an ordinal-indexed array, so {@link #get()} and {@link #getOrdinal()} only
+ *     read a field. The selection is logged as its ordinal.
+ * @param <T> enum type
+ */
+public final class EnumSelector<T extends Enum<T>> extends NetworkInputRegistry.Input implements Supplier<T> {
+    private final T[] values;
+    private final String[] names;
+    private final Consumer<T> onValueChange;
+    private final StringPublisher activePublisher;
+    private final StringSubscriber selectedSubscriber;
+
+    private int ordinal;
+    private int networkOrdinal;
+
+    EnumSelector(NetworkTable table, String key, Class<T> type, T defaultValue, Consumer<T> onValueChange) {
+        super(key);
+        this.values = type.getEnumConstants();
+        this.names = new String[values.length];
+        for (int i = 0; i < values.length; i++) names[i] = values[i].toString();
+        this.onValueChange = onValueChange;
+        this.ordinal = defaultValue.ordinal();
+        this.networkOrdinal = ordinal;
+
+        table.getStringTopic(".type").publish().set("String Chooser");
+        table.getStringArrayTopic("options").publish().set(names);
+        table.getStringTopic("default").publish().set(names[ordinal]);
+        this.activePublisher = table.getStringTopic("active").publish();
+        this.activePublisher.set(names[ordinal]);
+        this.selectedSubscriber = table.getStringTopic("selected").subscribe(names[ordinal]);
+
+        onValueChange.accept(defaultValue);
+    }
+
+    /**
+     * {@return the selected value}
+     */
+    @Override
+    public T get() {
+        return values[ordinal];
+    }
+
+    /**
+     * {@return the ordinal of the selected value}
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    Subscriber getSubscriber() {
+        return selectedSubscriber;
+    }
+
+    /**
+     * Receives the name of the selected option from NetworkTables
+     */
+    void receive(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                networkOrdinal = i;
+                return;
+            }
+        }
+    }
+
+    @Override
+    boolean update() {
+        return select(networkOrdinal);
+    }
+
+    @Override
+    boolean isSettled() {
+        return true;
+    }
+
+    @Override
+    void toLog(InputTable table) {
+        table.put(logKey, ordinal);
+    }
+
+    @Override
+    boolean fromLog(InputTable table) {
+        int logged = table.get(logKey, ordinal);
+        return logged >= 0 && logged < values.length && select(logged);
+    }
+
+    /**
+     * Selects the value at {@code nextOrdinal}, publishing it and calling {@code onValueChange} if it changed
+     * @return whether the selection changed
+     */
+    private boolean select(int nextOrdinal) {
+        if (nextOrdinal == ordinal) return false;
+        ordinal = nextOrdinal;
+        activePublisher.set(names[ordinal]);
+        onValueChange.accept(values[ordinal]);
+        return true;
+    }
+}
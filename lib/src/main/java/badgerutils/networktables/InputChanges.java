@@ -0,0 +1,99 @@
+package badgerutils.networktables;
+
+import badgerutils.networktables.NetworkInputRegistry.BooleanInput;
+import badgerutils.networktables.NetworkInputRegistry.Input;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks which inputs of a {@link NetworkInputRegistry} changed in each cycle, without reading NetworkTables or writing
+ * the log itself.
+ * <p>
+ *     Inputs that received values are updated once per cycle with {@link #update()}, and only the inputs whose value
+ *     changed since the last {@link #toLog(InputTable)} are written. An input that is not settled, such as a button
+ *     that was pressed and released within one cycle, is updated again in the next cycle. When replaying a log,
+ *     {@link #fromLog(InputTable)} reads every input back instead.
+ */
+final class InputChanges {
+    private final List<Input> inputs = new ArrayList<>();
+    private final List<Input> updatedInputs = new ArrayList<>();
+    private final List<Input> changedInputs = new ArrayList<>();
+    private final List<BooleanInput> resettingInputs = new ArrayList<>();
+    private int version;
+
+    /**
+     * Adds an input, which is written to the log in the next cycle
+     */
+    void add(Input input) {
+        inputs.add(input);
+        changedInputs.add(input);
+        if (input instanceof BooleanInput booleanInput && booleanInput.isAutoResetting()) resettingInputs.add(booleanInput);
+        version++;
+    }
+
+    /**
+     * Marks {@code input} as having received a value from NetworkTables, to be updated in this cycle
+     */
+    void received(Input input) {
+        if (input.updating) return;
+        input.updating = true;
+        updatedInputs.add(input);
+    }
+
+    /**
+     * Updates the value of every input that received values, keeping the inputs that must be updated again next cycle
+     */
+    void update() {
+        int kept = 0;
+        for (int i = 0; i < updatedInputs.size(); i++) {
+            Input input = updatedInputs.get(i);
+            if (input.update()) {
+                changedInputs.add(input);
+                version++;
+            }
+            if (input.isSettled()) {
+                input.updating = false;
+            } else {
+                updatedInputs.set(kept++, input);
+            }
+        }
+        updatedInputs.subList(kept, updatedInputs.size()).clear();
+    }
+
+    /**
+     * Publishes false to every auto-resetting input whose reset time has passed
+     * @param nowMicros the current local NetworkTables time, from the same clock as the receive times, in microseconds
+     */
+    void reset(long nowMicros) {
+        for (int i = 0; i < resettingInputs.size(); i++) {
+            resettingInputs.get(i).resetIfExpired(nowMicros);
+        }
+    }
+
+    /**
+     * Writes the inputs that changed since the last call
+     */
+    void toLog(InputTable table) {
+        for (int i = 0; i < changedInputs.size(); i++) {
+            changedInputs.get(i).toLog(table);
+        }
+        changedInputs.clear();
+    }
+
+    /**
+     * Reads every input from the log, counting the ones that changed in {@link #getVersion()}
+     */
+    void fromLog(InputTable table) {
+        for (int i = 0; i < inputs.size(); i++) {
+            if (inputs.get(i).fromLog(table)) version++;
+        }
+    }
+
+    /**
+     * {@return a counter that increases every time an input changes}
+     */
+    int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,23 @@
+package badgerutils.networktables;
+
+/**
+ * The values of a log table that {@link NetworkInputRegistry} inputs are written to and read back from.
+ * <p>Outside of tests, it is backed by the AdvantageKit {@code LogTable} of the registry</p>
+ */
+interface InputTable {
+    void put(String key, boolean value);
+
+    void put(String key, long value);
+
+    void put(String key, int value);
+
+    void put(String key, double value);
+
+    boolean get(String key, boolean defaultValue);
+
+    long get(String key, long defaultValue);
+
+    int get(String key, int defaultValue);
+
+    double get(String key, double defaultValue);
+}
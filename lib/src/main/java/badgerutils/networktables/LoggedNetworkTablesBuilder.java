@@ -21,6 +21,7 @@ public final class LoggedNetworkTablesBuilder {
      * @param eventLoop the eventLoop to bind the Trigger to
      *
      * @return a Trigger with a toggle based on a boolean NetworkTables entry
+     * @see #createBatchedButton(String, EventLoop)
      */
     public static Trigger createLoggedButton(String key, EventLoop eventLoop){
         LoggedNetworkBoolean loggedNetworkBoolean = new LoggedNetworkBoolean(key, false);
@@ -41,6 +42,7 @@ public final class LoggedNetworkTablesBuilder {
      * Creates a {@link Trigger} that resets its NetworkTables entry to false, after being true for 0.25 seconds.
      *
      * @see #createLoggedButton(String, EventLoop)
+     * @see #createBatchedAutoResettingButton(String, EventLoop)
      */
     public static Trigger createLoggedAutoResettingButton(String key, EventLoop eventLoop){
         LoggedNetworkBoolean loggedNetworkBoolean = new LoggedNetworkBoolean(key, false);
@@ -58,6 +60,55 @@ public final class LoggedNetworkTablesBuilder {
         return createLoggedAutoResettingButton(key, CommandScheduler.getInstance().getDefaultButtonLoop());
     }
 
+    /**
+     * Creates a {@link Trigger} instance that is bound to a boolean value at {@code key} on NetworkTables, read through the
+     * {@link NetworkInputRegistry#getDefault() default registry}.
+     * <p>
+     *     Unlike {@link #createLoggedButton(String, EventLoop)}, the value is only read and logged in cycles where it
+     *     changed on NetworkTables, and a press that is released within one cycle is still seen for one cycle. The Trigger
+     *     is only polled in cycles where an input of the registry changed.
+     *
+     * @param key the key on NetworkTables
+     * @param eventLoop the eventLoop to bind the Trigger to
+     *
+     * @return a Trigger with a toggle based on a boolean NetworkTables entry
+     */
+    public static Trigger createBatchedButton(String key, EventLoop eventLoop){
+        NetworkInputRegistry registry = NetworkInputRegistry.getDefault();
+
+        return registry.trigger(registry.addBoolean(key, false), eventLoop);
+    }
+
+    /**
+     * {@code eventLoop} defaults to the default button loop of the {@link CommandScheduler}
+     *
+     * @see #createBatchedButton(String, EventLoop)
+     */
+    public static Trigger createBatchedButton(String key){
+        return createBatchedButton(key, CommandScheduler.getInstance().getDefaultButtonLoop());
+    }
+
+    /**
+     * Similar to {@link #createBatchedButton(String, EventLoop)}, except that the NetworkTables entry is reset to false
+     * 0.25 seconds after it was set to true. The reset is timed by the registry, without scheduling a command.
+     *
+     * @see #createLoggedAutoResettingButton(String, EventLoop)
+     */
+    public static Trigger createBatchedAutoResettingButton(String key, EventLoop eventLoop){
+        NetworkInputRegistry registry = NetworkInputRegistry.getDefault();
+
+        return registry.trigger(registry.addAutoResettingBoolean(key, 0.25), eventLoop);
+    }
+
+    /**
+     * {@code eventLoop} defaults to the default button loop of the {@link CommandScheduler}
+     *
+     * @see #createBatchedAutoResettingButton(String, EventLoop)
+     */
+    public static Trigger createBatchedAutoResettingButton(String key){
+        return createBatchedAutoResettingButton(key, CommandScheduler.getInstance().getDefaultButtonLoop());
+    }
+
     /**
      * Creates a {@link LoggedDashboardChooser} that contains the name of each Enum constant as an option.
      *
@@ -93,4 +144,33 @@ public final class LoggedNetworkTablesBuilder {
     public static <T extends Enum<T>> LoggedDashboardChooser<Enum<T>> createSelectorFromEnum(String key, Class<T> tEnum, Consumer<Enum<T>> onValueChange) {
         return createSelectorFromEnum(key, tEnum, tEnum.getEnumConstants()[0], onValueChange);
     }
+
+    /**
+     * Creates an {@link EnumSelector} that contains the name of each Enum constant as an option, read through the
+     * {@link NetworkInputRegistry#getDefault() default registry}.
+     * <p>
+     *     Unlike {@link #createSelectorFromEnum(String, Class, Enum, Consumer)}, the selected value is typed, and
+     *     {@code onValueChange} is only called when the selection changes.
+     *
+     * @param key the key on SmartDashboard
+     * @param tEnum the class of the Enum
+     * @param startingValue the initially selected Enum value
+     * @param onValueChange a {@link Consumer} that gets called on startup, and whenever the selection changes with the
+     * value it changed to
+     * @param <T> the type of the Enum
+     *
+     * @return the created and published {@code EnumSelector}
+     */
+    public static <T extends Enum<T>> EnumSelector<T> createEnumSelector(String key, Class<T> tEnum, T startingValue, Consumer<T> onValueChange) {
+        return NetworkInputRegistry.getDefault().addEnumSelector(key, tEnum, startingValue, onValueChange);
+    }
+
+    /**
+     * {@code startingValue} defaults to the first defined Enum constant
+     *
+     * @see #createEnumSelector(String, Class, Enum, Consumer)
+     */
+    public static <T extends Enum<T>> EnumSelector<T> createEnumSelector(String key, Class<T> tEnum, Consumer<T> onValueChange) {
+        return createEnumSelector(key, tEnum, tEnum.getEnumConstants()[0], onValueChange);
+    }
 }
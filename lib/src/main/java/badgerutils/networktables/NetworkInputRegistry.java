@@ -0,0 +1,494 @@
+package badgerutils.networktables;
+
+import badgerutils.triggers.GatedTrigger;
+import edu.wpi.first.networktables.BooleanEntry;
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableListenerPoller;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.Subscriber;
+import edu.wpi.first.wpilibj.event.EventLoop;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.Logger;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+import org.littletonrobotics.junction.networktables.LoggedNetworkInput;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Reads every registered dashboard input through one NetworkTables listener queue, drained once per cycle.
+ * <p>
+ *     Unlike one {@code LoggedNetworkBoolean} per input, which reads NetworkTables and processes its AdvantageKit inputs
+ *     every cycle, the registry is a single dashboard input. Each cycle it drains the value-change events of all its
+ *     entries and writes only the inputs that changed to the log. When replaying a log, the values are read from the log instead.
+ * <p>
+ *     Reading an input is a field read. Triggers created with {@link #trigger(BooleanInput, EventLoop)} are not polled
+ *     by the given {@link EventLoop} directly: the registry binds one gate to that loop, which only polls its triggers in
+ *     cycles where {@link #getVersion()} changed. Other code that should only run when something changed can compare
+ *     {@code getVersion()} the same way.
+ * <p>
+ *     Every value-change event is processed, not only the latest value. A boolean input that is pressed and released
+ *     within one cycle is seen as true for one cycle and false in the next, so no press is lost, and the server timestamp
+ *     of every press and release is kept. Auto-resetting inputs are reset by comparing the local time against the local
+ *     time each press was received, without scheduling any commands.
+ */
+public final class NetworkInputRegistry extends LoggedNetworkInput {
+    private static final String LOG_PREFIX = "NetworkInputs";
+    private static NetworkInputRegistry defaultRegistry;
+
+    private final NetworkTableInstance instance;
+    private final NetworkTableListenerPoller poller;
+    private final Map<Integer, Listener> listeners = new HashMap<>();
+    private final InputChanges changes = new InputChanges();
+    private final LogTableInputs logTable = new LogTableInputs();
+    private final Map<EventLoop, EventLoop> gatedLoops = new IdentityHashMap<>();
+
+    private record Listener(Input input, Consumer<NetworkTableValue> receiver) {}
+
+    private final LoggableInputs loggableInputs = new LoggableInputs() {
+        @Override
+        public void toLog(LogTable table) {
+            logTable.table = table;
+            changes.toLog(logTable);
+        }
+
+        @Override
+        public void fromLog(LogTable table) {
+            logTable.table = table;
+            changes.fromLog(logTable);
+        }
+    };
+
+    /**
+     * Creates a new {@link NetworkInputRegistry} and registers it with the AdvantageKit {@link Logger}.
+     * Most code should use {@link #getDefault()} instead
+     * @param instance the NetworkTables instance to read inputs from
+     */
+    public NetworkInputRegistry(NetworkTableInstance instance) {
+        this.instance = instance;
+        this.poller = new NetworkTableListenerPoller(instance);
+        Logger.registerDashboardInput(this);
+    }
+
+    /**
+     * {@return the registry of the default NetworkTables instance, created the first time it is needed}
+     */
+    public static NetworkInputRegistry getDefault() {
+        if (defaultRegistry == null) defaultRegistry = new NetworkInputRegistry(NetworkTableInstance.getDefault());
+        return defaultRegistry;
+    }
+
+    /**
+     * Adds a boolean input at {@code key} on NetworkTables, published with {@code defaultValue}
+     * @param key the key on NetworkTables
+     * @param defaultValue the initial value
+     * @return the input
+     */
+    public BooleanInput addBoolean(String key, boolean defaultValue) {
+        BooleanEntry entry = instance.getBooleanTopic(key).getEntry(defaultValue);
+        entry.set(defaultValue);
+        BooleanInput input = new BooleanInput(key, entry::set, defaultValue, 0);
+        return register(input, entry, value -> input.receive(value.getBoolean(), value.getServerTime(), value.getTime()));
+    }
+
+    /**
+     * Adds a boolean input at {@code key} on NetworkTables, initially false, that is reset to false {@code resetSeconds}
+     * after it was set to true
+     * @param key the key on NetworkTables
+     * @param resetSeconds the time after each press to reset the input, in seconds
+     * @return the input
+     */
+    public BooleanInput addAutoResettingBoolean(String key, double resetSeconds) {
+        if (!(resetSeconds > 0)) {
+            throw new IllegalArgumentException("resetSeconds must be positive, was " + resetSeconds);
+        }
+        BooleanEntry entry = instance.getBooleanTopic(key).getEntry(false);
+        entry.set(false);
+        BooleanInput input = new BooleanInput(key, entry::set, false, (long) (resetSeconds * 1e6));
+        return register(input, entry, value -> input.receive(value.getBoolean(), value.getServerTime(), value.getTime()));
+    }
+
+    /**
+     * Adds a double input at {@code key} on NetworkTables, published with {@code defaultValue}
+     * @param key the key on NetworkTables
+     * @param defaultValue the initial value
+     * @return the input
+     */
+    public DoubleInput addDouble(String key, double defaultValue) {
+        DoubleEntry entry = instance.getDoubleTopic(key).getEntry(defaultValue);
+        entry.set(defaultValue);
+        DoubleInput input = new DoubleInput(key, entry::set, defaultValue);
+        return register(input, entry, value -> input.receive(value.getDouble()));
+    }
+
+    private <I extends Input> I register(I input, Subscriber subscriber, Consumer<NetworkTableValue> receiver) {
+        int listener = poller.addListener(subscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll));
+        listeners.put(listener, new Listener(input, receiver));
+        changes.add(input);
+        return input;
+    }
+
+    /**
+     * Adds an {@link EnumSelector} at {@code key} on SmartDashboard, with the name of each constant of {@code type} as an option
+     * @param key the key of the selector in the SmartDashboard table
+     * @param type the class of the enum
+     * @param defaultValue the initially selected value
+     * @param onValueChange called with {@code defaultValue} now, and with the new value every time the selection changes
+     * @return the selector
+     * @param <T> enum type
+     */
+    public <T extends Enum<T>> EnumSelector<T> addEnumSelector(String key, Class<T> type, T defaultValue, Consumer<T> onValueChange) {
+        EnumSelector<T> selector = new EnumSelector<>(instance.getTable("SmartDashboard").getSubTable(key),
+                "/SmartDashboard/" + key, type, defaultValue, onValueChange);
+        return register(selector, selector.getSubscriber(), value -> selector.receive(value.getString()));
+    }
+
+    /**
+     * Creates a {@link Trigger} on {@code input}, which reads the value of the input as of the start of the cycle.
+     * <p>The trigger is only polled in cycles where an input of the registry changed. Compositions with {@code and},
+     * {@code or} and {@code debounce} are polled by {@code eventLoop} every cycle</p>
+     * @param input the input of the trigger
+     * @param eventLoop the event loop that polls the trigger
+     * @return the trigger
+     * @see GatedTrigger
+     */
+    public Trigger trigger(BooleanInput input, EventLoop eventLoop) {
+        return new GatedTrigger(getGatedLoop(eventLoop), eventLoop, input);
+    }
+
+    /**
+     * {@return the loop that polls the triggers of {@code eventLoop}, bound to it the first time it is needed}
+     */
+    private EventLoop getGatedLoop(EventLoop eventLoop) {
+        return gatedLoops.computeIfAbsent(eventLoop, loop -> {
+            EventLoop gatedLoop = new EventLoop();
+            loop.bind(new Runnable() {
+                // Starts out of date, so that the first poll sets the initial value of every trigger
+                private int version = -1;
+
+                @Override
+                public void run() {
+                    int currentVersion = getVersion();
+                    if (currentVersion == version) return;
+                    version = currentVersion;
+                    gatedLoop.poll();
+                }
+            });
+            return gatedLoop;
+        });
+    }
+
+    /**
+     * {@return a counter that increases every time an input changes}
+     */
+    public int getVersion() {
+        return changes.getVersion();
+    }
+
+    /**
+     * Drains the value-change events of every input, logs the inputs that changed and resets auto-resetting inputs.
+     * Called by the {@link Logger} every cycle
+     */
+    @Override
+    public void periodic() {
+        if (!Logger.hasReplaySource()) {
+            for (NetworkTableEvent event : poller.readQueue()) {
+                Listener listener = listeners.get(event.listener);
+                if (listener == null || event.valueData == null) continue;
+                listener.receiver().accept(event.valueData.value);
+                changes.received(listener.input());
+            }
+            changes.update();
+            changes.reset(NetworkTablesJNI.now());
+        }
+        Logger.processInputs(LOG_PREFIX, loggableInputs);
+    }
+
+    /**
+     * Reads and writes inputs through the {@link LogTable} of the current cycle, without allocating an adapter every cycle
+     */
+    private static final class LogTableInputs implements InputTable {
+        private LogTable table;
+
+        @Override
+        public void put(String key, boolean value) {
+            table.put(key, value);
+        }
+
+        @Override
+        public void put(String key, long value) {
+            table.put(key, value);
+        }
+
+        @Override
+        public void put(String key, int value) {
+            table.put(key, value);
+        }
+
+        @Override
+        public void put(String key, double value) {
+            table.put(key, value);
+        }
+
+        @Override
+        public boolean get(String key, boolean defaultValue) {
+            return table.get(key, defaultValue);
+        }
+
+        @Override
+        public long get(String key, long defaultValue) {
+            return table.get(key, defaultValue);
+        }
+
+        @Override
+        public int get(String key, int defaultValue) {
+            return table.get(key, defaultValue);
+        }
+
+        @Override
+        public double get(String key, double defaultValue) {
+            return table.get(key, defaultValue);
+        }
+    }
+
+    abstract static class Input {
+        final String logKey;
+        boolean updating;
+
+        Input(String key) {
+            this.logKey = key.startsWith("/") ? key.substring(1) : key;
+        }
+
+        /**
+         * Updates the value seen in this cycle from the received values
+         * @return whether the value changed
+         */
+        abstract boolean update();
+
+        /**
+         * {@return whether the value seen in this cycle is the latest value on NetworkTables}
+         */
+        abstract boolean isSettled();
+
+        abstract void toLog(InputTable table);
+
+        /**
+         * {@return whether the value changed}
+         */
+        abstract boolean fromLog(InputTable table);
+    }
+
+    /**
+     * A boolean dashboard input, read through a {@link NetworkInputRegistry}.
+     * <p>
+     *     Presses are counted as they are received, and each one is shown as true for at least one cycle, followed by
+     *     false for at least one cycle before the next press. A press released within one cycle, or several presses in
+     *     consecutive cycles, are therefore all seen by triggers, a few cycles late if they come faster than the loop.
+     * <p>
+     *     The server time of the latest press and release are logged under {@code PressTimestamps/<key>} and
+     *     {@code ReleaseTimestamps/<key>}.
+     */
+    public static final class BooleanInput extends Input implements BooleanSupplier {
+        private final Consumer<Boolean> publisher;
+        private final String pressTimestampKey;
+        private final String releaseTimestampKey;
+        private final long resetMicros;
+        private boolean value;
+        private boolean networkValue;
+        private int pendingPresses;
+        private long pressTimestamp;
+        private long releaseTimestamp;
+        /**
+         * The local time to reset at. Server timestamps are not used, as they are offset from the local clock
+         */
+        private long resetTimestamp;
+
+        BooleanInput(String key, Consumer<Boolean> publisher, boolean defaultValue, long resetMicros) {
+            super(key);
+            this.publisher = publisher;
+            this.pressTimestampKey = "PressTimestamps/" + logKey;
+            this.releaseTimestampKey = "ReleaseTimestamps/" + logKey;
+            this.resetMicros = resetMicros;
+            this.value = defaultValue;
+            this.networkValue = defaultValue;
+        }
+
+        /**
+         * {@return the value as of the start of the current cycle}
+         */
+        public boolean get() {
+            return value;
+        }
+
+        @Override
+        public boolean getAsBoolean() {
+            return value;
+        }
+
+        /**
+         * Gets the NetworkTables server time of the latest change to true. Subtracting it from the time of the resulting
+         * action gives the latency from press to action
+         * @return the time of the latest press in microseconds, or 0 if it was never pressed
+         */
+        public long getPressTimestamp() {
+            return pressTimestamp;
+        }
+
+        /**
+         * {@return the NetworkTables server time of the latest change to false, in microseconds, or 0 if it was never released}
+         */
+        public long getReleaseTimestamp() {
+            return releaseTimestamp;
+        }
+
+        /**
+         * Publishes {@code value} to NetworkTables. The input itself changes at the start of the next cycle
+         * @param value the new value
+         */
+        public void set(boolean value) {
+            publisher.accept(value);
+        }
+
+        /**
+         * Receives a value from NetworkTables, published at {@code serverTime} and received at {@code localTime}
+         */
+        void receive(boolean next, long serverTime, long localTime) {
+            if (next == networkValue) return;
+            networkValue = next;
+            if (next) {
+                pendingPresses++;
+                pressTimestamp = serverTime;
+                if (resetMicros > 0) resetTimestamp = localTime + resetMicros;
+            } else {
+                releaseTimestamp = serverTime;
+            }
+        }
+
+        boolean isAutoResetting() {
+            return resetMicros > 0;
+        }
+
+        /**
+         * Publishes false if the reset time of the latest press has passed
+         * @param nowMicros the current local NetworkTables time, in microseconds
+         */
+        void resetIfExpired(long nowMicros) {
+            if (resetTimestamp == 0 || nowMicros < resetTimestamp) return;
+            resetTimestamp = 0;
+            publisher.accept(false);
+        }
+
+        @Override
+        boolean update() {
+            boolean previous = value;
+            if (previous) {
+                // Release after a press is shown, even if the next press is already waiting, so that it has a rising edge
+                value = networkValue && pendingPresses == 0;
+            } else if (pendingPresses > 0) {
+                value = true;
+                pendingPresses--;
+            } else {
+                value = networkValue;
+            }
+            return value != previous;
+        }
+
+        @Override
+        boolean isSettled() {
+            return value == networkValue && pendingPresses == 0;
+        }
+
+        @Override
+        void toLog(InputTable table) {
+            table.put(logKey, value);
+            table.put(pressTimestampKey, pressTimestamp);
+            table.put(releaseTimestampKey, releaseTimestamp);
+        }
+
+        @Override
+        boolean fromLog(InputTable table) {
+            boolean previous = value;
+            value = table.get(logKey, value);
+            pressTimestamp = table.get(pressTimestampKey, pressTimestamp);
+            releaseTimestamp = table.get(releaseTimestampKey, releaseTimestamp);
+            return value != previous;
+        }
+    }
+
+    /**
+     * A double dashboard input, read through a {@link NetworkInputRegistry}
+     */
+    public static final class DoubleInput extends Input implements DoubleSupplier {
+        private final DoubleConsumer publisher;
+        private double value;
+        private double networkValue;
+
+        DoubleInput(String key, DoubleConsumer publisher, double defaultValue) {
+            super(key);
+            this.publisher = publisher;
+            this.value = defaultValue;
+            this.networkValue = defaultValue;
+        }
+
+        /**
+         * {@return the value as of the start of the current cycle}
+         */
+        public double get() {
+            return value;
+        }
+
+        @Override
+        public double getAsDouble() {
+            return value;
+        }
+
+        /**
+         * Publishes {@code value} to NetworkTables. The input itself changes at the start of the next cycle
+         * @param value the new value
+         */
+        public void set(double value) {
+            publisher.accept(value);
+        }
+
+        /**
+         * Receives a value from NetworkTables
+         */
+        void receive(double received) {
+            networkValue = received;
+        }
+
+        @Override
+        boolean update() {
+            double previous = value;
+            value = networkValue;
+            return Double.compare(value, previous) != 0;
+        }
+
+        @Override
+        boolean isSettled() {
+            return true;
+        }
+
+        @Override
+        void toLog(InputTable table) {
+            table.put(logKey, value);
+        }
+
+        @Override
+        boolean fromLog(InputTable table) {
+            double previous = value;
+            value = table.get(logKey, value);
+            return Double.compare(value, previous) != 0;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package badgerutils.statemachine;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Reorders the guards of each transition to minimise the expected cost of evaluating them.
+ * <p>
+ *     Enabled with {@link StateMachine#enableAdaptiveGuardOrdering(int)}. Evaluation stops at the first guard that
+ *     rejects a transition, so cheap guards that reject often should run first. Every guard's mean cost and rejection
+ *     rate are tracked, and every {@code reorderPeriod} evaluations of a transition its guards are sorted by
+ *     {@code meanNanos / rejectionRate}, which minimises the expected cost for independent guards.
+ * <p>
+ *     Guards created with {@link StateGuardCondition#pinned(StateGuardCondition)} keep their position,
+ *     and no guard is moved past them. Only one in {@value #SAMPLE_PERIOD} calls of each guard is timed,
+ *     and old statistics are halved periodically so that the order follows changes in behavior.
+ *     Statistics are kept in primitive arrays indexed by the ids from {@link CompiledGuards#getGuardIds(Enum, Enum)},
+ *     so evaluation never allocates.
+ * @param <T> enum type
+ */
+public final class AdaptiveGuardOrder<T extends Enum<T>> {
+    private static final int SAMPLE_PERIOD = 16;
+    private static final long DECAY_CALLS = 1 << 16;
+    private static final double MIN_REJECTION_RATE = 1e-3;
+
+    private final CompiledGuards<T> stateGuards;
+    private final int reorderPeriod;
+    private final LongSupplier clockNanos;
+    private final int stateCount;
+
+    private final int[][] orders;
+    private final int[] evaluationsSinceReorder;
+    private final long[] calls, rejections, samples, sampledNanos;
+    private long reorderCount;
+
+    AdaptiveGuardOrder(Class<T> enumType, CompiledGuards<T> stateGuards, int reorderPeriod, LongSupplier clockNanos) {
+        if (reorderPeriod < 1) {
+            throw new IllegalArgumentException("reorderPeriod must be at least 1, was " + reorderPeriod);
+        }
+        this.stateGuards = stateGuards;
+        this.reorderPeriod = reorderPeriod;
+        this.clockNanos = clockNanos;
+
+        T[] states = enumType.getEnumConstants();
+        stateCount = states.length;
+        orders = new int[stateCount * stateCount][];
+        for (T previousState : states) {
+            for (T nextState : states) {
+                int[] ids = stateGuards.getGuardIds(previousState, nextState);
+                int[] order = ids.length == 0 ? ids : new int[ids.length];
+                for (int i = 0; i < order.length; i++) order[i] = i;
+                orders[previousState.ordinal() * stateCount + nextState.ordinal()] = order;
+            }
+        }
+        evaluationsSinceReorder = new int[stateCount * stateCount];
+
+        calls = new long[stateGuards.getGuardCount()];
+        rejections = new long[stateGuards.getGuardCount()];
+        samples = new long[stateGuards.getGuardCount()];
+        sampledNanos = new long[stateGuards.getGuardCount()];
+    }
+
+    /**
+     * {@return {@link CompiledGuards#NO_GUARD} if every guard allowed the transition, or the id of the guard that rejected it}
+     */
+    int evaluateGuards(Transition<T> transition) {
+        int cell = transition.previousState().ordinal() * stateCount + transition.nextState().ordinal();
+        StateGuardCondition<T>[] guards = stateGuards.getGuards(transition);
+        int[] ids = stateGuards.getGuardIds(transition.previousState(), transition.nextState());
+
+        int result = CompiledGuards.NO_GUARD;
+        for (int position : orders[cell]) {
+            int id = ids[position];
+            boolean allowed;
+            if (calls[id]++ % SAMPLE_PERIOD == 0) {
+                long start = clockNanos.getAsLong();
+                allowed = guards[position].canChange(transition);
+                sampledNanos[id] += clockNanos.getAsLong() - start;
+                samples[id]++;
+            } else {
+                allowed = guards[position].canChange(transition);
+            }
+            if (!allowed) {
+                rejections[id]++;
+                result = id;
+                break;
+            }
+        }
+
+        if (++evaluationsSinceReorder[cell] >= reorderPeriod) {
+            evaluationsSinceReorder[cell] = 0;
+            reorder(orders[cell], guards, ids);
+        }
+        return result;
+    }
+
+    private void reorder(int[] order, StateGuardCondition<T>[] guards, int[] ids) {
+        for (int id : ids) {
+            if (calls[id] >= DECAY_CALLS) {
+                calls[id] /= 2;
+                rejections[id] /= 2;
+                samples[id] /= 2;
+                sampledNanos[id] /= 2;
+            }
+        }
+
+        boolean changed = false;
+        int segmentStart = 0;
+        for (int i = 0; i <= order.length; i++) {
+            if (i < order.length && !(guards[order[i]] instanceof PinnedGuardCondition)) continue;
+
+            for (int j = segmentStart + 1; j < i; j++) {
+                int position = order[j];
+                double score = getScore(ids[position]);
+                int k = j - 1;
+                while (k >= segmentStart && getScore(ids[order[k]]) > score) {
+                    order[k + 1] = order[k];
+                    k--;
+                }
+                if (k + 1 != j) changed = true;
+                order[k + 1] = position;
+            }
+            segmentStart = i + 1;
+        }
+        if (changed) reorderCount++;
+    }
+
+    private double getScore(int id) {
+        return getMeanNanos(id) / Math.max(getRejectionRate(id), MIN_REJECTION_RATE);
+    }
+
+    /**
+     * {@return the mean time taken by the guard with the index {@code id}, in nanoseconds, or 0 if it has never been timed}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public double getMeanNanos(int id) {
+        return samples[id] == 0 ? 0 : (double) sampledNanos[id] / samples[id];
+    }
+
+    /**
+     * {@return the fraction of evaluations of the guard with the index {@code id} that rejected the transition}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public double getRejectionRate(int id) {
+        return calls[id] == 0 ? 0 : (double) rejections[id] / calls[id];
+    }
+
+    /**
+     * {@return the number of times the guard with the index {@code id} was evaluated, halved periodically}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public long getCalls(int id) {
+        return calls[id];
+    }
+
+    /**
+     * {@return the ids of the guards of a transition, in the order they are currently evaluated}
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     */
+    public int[] getOrder(T previousState, T nextState) {
+        int[] order = orders[previousState.ordinal() * stateCount + nextState.ordinal()];
+        int[] ids = stateGuards.getGuardIds(previousState, nextState);
+        int[] orderedIds = new int[order.length];
+        for (int i = 0; i < order.length; i++) orderedIds[i] = ids[order[i]];
+        return orderedIds;
+    }
+
+    /**
+     * {@return the number of times the order of a transition's guards has changed}
+     */
+    public long getReorderCount() {
+        return reorderCount;
+    }
+}
@@ -0,0 +1,79 @@
+package badgerutils.statemachine;
+
+import org.littletonrobotics.junction.LogReplaySource;
+import org.littletonrobotics.junction.LogTable;
+
+/**
+ * Loads a {@link ReplayLog} from an AdvantageKit log, such as a {@code WPILOGReader}, of a state machine recorded with
+ * {@link StateMachine#enableRecording(String, java.util.function.DoubleSupplier...)}.
+ * <pre>{@code
+ * ReplayLog<ArmState> log = AdvantageKitReplayReader.read(new WPILOGReader(path), "Arm/Replay", ArmState.class);
+ * ReplayResult<ArmState> result = new StateMachineReplay<>(inputs -> createArm(inputs)).run(log);
+ * }</pre>
+ * @see StateMachineRecorder
+ */
+public final class AdvantageKitReplayReader {
+    private static final String OUTPUTS_PREFIX = "RealOutputs/";
+    private static final long[] NO_LONGS = {};
+    private static final int[] NO_INTS = {};
+    private static final boolean[] NO_BOOLEANS = {};
+    private static final double[] NO_DOUBLES = {};
+
+    private AdvantageKitReplayReader() {}
+
+    /**
+     * Reads every cycle of {@code source} and collects the entries recorded under {@code key}
+     * @param source the AdvantageKit log to read, which is started and ended by this method
+     * @param key the key passed to {@code enableRecording}
+     * @param enumType the enum type of the recorded state machine
+     * @return the recorded entries, in order
+     * @param <T> enum type
+     * @throws IllegalArgumentException if the log has no recording under {@code key}, or is missing some of its entries
+     */
+    public static <T extends Enum<T>> ReplayLog<T> read(LogReplaySource source, String key, Class<T> enumType) {
+        String prefix = OUTPUTS_PREFIX + key + "/";
+        T[] states = enumType.getEnumConstants();
+        LogTable table = new LogTable(0);
+        ReplayLog<T> log = null;
+        double[] guardInputs = null;
+
+        source.start();
+        try {
+            while (source.updateTable(table)) {
+                int initialState = table.get(prefix + "InitialState", -1);
+                if (initialState < 0) continue;
+                if (log == null) {
+                    log = new ReplayLog<>(states[initialState], table.get(prefix + "InputCount", 0));
+                    guardInputs = new double[log.getInputCount()];
+                }
+
+                // AdvantageKit repeats the last value of a key in cycles that did not write it
+                long firstIndex = table.get(prefix + "FirstIndex", -1L);
+                if (firstIndex < log.size()) continue;
+                if (firstIndex > log.size()) {
+                    throw new IllegalArgumentException("The recording under " + key + " is missing entries "
+                            + log.size() + " to " + (firstIndex - 1));
+                }
+
+                long[] timestamps = table.get(prefix + "Timestamps", NO_LONGS);
+                int[] requestedStates = table.get(prefix + "RequestedStates", NO_INTS);
+                int[] resultingStates = table.get(prefix + "ResultingStates", NO_INTS);
+                boolean[] forced = table.get(prefix + "Forced", NO_BOOLEANS);
+                double[] inputs = table.get(prefix + "Inputs", NO_DOUBLES);
+                for (int index = 0; index < timestamps.length; index++) {
+                    System.arraycopy(inputs, index * guardInputs.length, guardInputs, 0, guardInputs.length);
+                    if (forced[index]) {
+                        log.recordForced(timestamps[index], states[requestedStates[index]], guardInputs);
+                    } else {
+                        log.record(timestamps[index], states[requestedStates[index]], states[resultingStates[index]], guardInputs);
+                    }
+                }
+            }
+        } finally {
+            source.end();
+        }
+
+        if (log == null) throw new IllegalArgumentException("The AdvantageKit log has no recording under " + key);
+        return log;
+    }
+}
@@ -0,0 +1,49 @@
+package badgerutils.statemachine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the asynchronous edges of one {@link StateMachine}, one transition after another.
+ * <p>
+ *     Each transition's asynchronous edges are chained onto the previous transition's, so they run in transition order
+ *     even on a multithreaded executor. A failing edge completes its own future exceptionally, but does not stop later
+ *     transitions.
+ */
+final class AsyncEdgeQueue<T extends Enum<T>> {
+    static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "StateMachine async edges");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Executor executor;
+    private volatile CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+
+    AsyncEdgeQueue(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues every asynchronous edge in {@code edges}, after all previously queued transitions
+     * @return the future completing once the edges have run
+     */
+    CompletableFuture<Void> submit(StateEdge<T>[] edges, Transition<T> transition) {
+        tail = tail.handle((result, exception) -> null).thenRunAsync(() -> {
+            for (StateEdge<T> edge : edges) {
+                if (edge instanceof AsyncStateEdge) edge.performTransition(transition);
+            }
+        }, executor);
+        return tail;
+    }
+
+    void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    CompletableFuture<Void> getTail() {
+        return tail;
+    }
+}
@@ -0,0 +1,24 @@
+package badgerutils.statemachine;
+
+/**
+ * Marks an edge to be run on a background thread instead of the thread that changed the state.
+ * <p>Created with {@link StateEdge#async(StateEdge)}</p>
+ *
+ * @param <T> enum type
+ */
+final class AsyncStateEdge<T extends Enum<T>> implements StateEdge<T> {
+    private final StateEdge<T> edge;
+
+    AsyncStateEdge(StateEdge<T> edge) {
+        this.edge = edge;
+    }
+
+    @Override
+    public void performTransition(Transition<T> transition) {
+        edge.performTransition(transition);
+    }
+
+    StateEdge<T> getEdge() {
+        return edge;
+    }
+}
@@ -0,0 +1,141 @@
+package badgerutils.statemachine;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, precompiled form of {@link Edges}.
+ * <p>
+ *     Every exact, 'state to any', 'any to state' and 'any to any' edge matching a transition is merged ahead of time
+ *     into one array, indexed by {@code [previousState.ordinal()][nextState.ordinal()]}. Looking up the edges of a
+ *     transition is two array indexes and never allocates.
+ * <p>
+ *     If a {@link StateHierarchy} is used, its exit edges are merged in before the matching edges, and its entry edges after.
+ *     Transitions without edges share one empty edge array and one empty id array.
+ * <p>
+ *     Created with {@link Edges#compile(Class)}. Edges added to the {@code Edges} afterward are not reflected.
+ * @param <T> the enum type
+ */
+public final class CompiledEdges<T extends Enum<T>> {
+    /**
+     * The id returned for an edge that does not match any transition
+     */
+    public static final int NO_EDGE = -1;
+
+    private static final StateEdge<?>[] NO_EDGES = new StateEdge<?>[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private final StateEdge<T>[][][] table;
+    private final int[][][] edgeIds;
+    private final StateEdge<T>[] distinctEdges;
+    private final String[] edgeNames;
+
+    @SuppressWarnings("unchecked")
+    CompiledEdges(Class<T> enumType, Edges<T> edges, StateHierarchy<T> hierarchy) {
+        T[] states = enumType.getEnumConstants();
+        StateEdge<T>[] none = (StateEdge<T>[]) NO_EDGES;
+        table = (StateEdge<T>[][][]) new StateEdge[states.length][states.length][];
+
+        for (T previousState : states) {
+            for (T nextState : states) {
+                Transition<T> transition = new Transition<>(previousState, nextState);
+                List<StateEdge<T>> matching = hierarchy.getPathEdges(transition, true);
+                matching.addAll(edges.getEdges(transition, hierarchy));
+                matching.addAll(hierarchy.getPathEdges(transition, false));
+                table[previousState.ordinal()][nextState.ordinal()] = matching.isEmpty() ? none : matching.toArray(none);
+            }
+        }
+
+        Map<StateEdge<T>, Integer> ids = new IdentityHashMap<>();
+        edgeIds = new int[states.length][states.length][];
+        for (int previous = 0; previous < states.length; previous++) {
+            for (int next = 0; next < states.length; next++) {
+                StateEdge<T>[] cell = table[previous][next];
+                edgeIds[previous][next] = cell.length == 0 ? NO_IDS : new int[cell.length];
+                for (int i = 0; i < cell.length; i++) {
+                    edgeIds[previous][next][i] = ids.computeIfAbsent(cell[i], key -> ids.size());
+                }
+            }
+        }
+        distinctEdges = (StateEdge<T>[]) new StateEdge[ids.size()];
+        ids.forEach((edge, id) -> distinctEdges[id] = edge);
+
+        edgeNames = new String[distinctEdges.length];
+        for (int id = 0; id < distinctEdges.length; id++) {
+            StateEdge<T> edge = distinctEdges[id];
+            String description = edges.describe(edge);
+            if (description == null) description = hierarchy.describe(edge);
+            if (edge instanceof AsyncStateEdge<T> asyncEdge) edge = asyncEdge.getEdge();
+            edgeNames[id] = TransitionRules.nameOf(edge, description);
+        }
+        TransitionRules.numberRepeats(edgeNames);
+    }
+
+    /**
+     * Gets all matching edges for a specified transition, in the same order as {@link Edges#getEdges(Transition)}, 
+     * between the exit and entry edges of the {@link StateHierarchy}
+     * <p>The returned array is shared and must not be modified</p>
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     * @return the array of matching edges
+     */
+    public StateEdge<T>[] getEdges(T previousState, T nextState) {
+        return table[previousState.ordinal()][nextState.ordinal()];
+    }
+
+    /**
+     * Similar to {@link #getEdges(Enum, Enum)}, using the states of {@code transition}
+     */
+    public StateEdge<T>[] getEdges(Transition<T> transition) {
+        return getEdges(transition.previousState(), transition.nextState());
+    }
+
+    /**
+     * Gets the index of each edge returned by {@link #getEdges(Enum, Enum)}, at the same positions.
+     * Each distinct edge has one index, between 0 and {@link #getEdgeCount()}, shared by every transition it matches.
+     * <p>The returned array is shared and must not be modified</p>
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     * @return the array of edge indexes
+     */
+    public int[] getEdgeIds(T previousState, T nextState) {
+        return edgeIds[previousState.ordinal()][nextState.ordinal()];
+    }
+
+    /**
+     * {@return the number of distinct edges}
+     */
+    public int getEdgeCount() {
+        return distinctEdges.length;
+    }
+
+    /**
+     * {@return the edge with the index {@code id}}
+     * @param id the index of the edge, as returned by {@link #getEdgeIds(Enum, Enum)}
+     */
+    public StateEdge<T> getEdge(int id) {
+        return distinctEdges[id];
+    }
+
+    /**
+     * {@return the index of {@code edge}, or {@link #NO_EDGE} if it does not match any transition}
+     * @param edge the edge, as it was added to the {@link Edges} or {@link StateHierarchy}
+     */
+    public int getEdgeId(StateEdge<T> edge) {
+        for (int id = 0; id < distinctEdges.length; id++) {
+            if (distinctEdges[id] == edge) return id;
+        }
+        return NO_EDGE;
+    }
+
+    /**
+     * {@return the name of the edge with the index {@code id}}
+     * <p>The name is given with {@link StateEdge#named(String, StateEdge)}, or is the rule the edge was first added with.
+     * Repeated names are numbered, so every name is unique</p>
+     * @param id the index of the edge, as returned by {@link #getEdgeIds(Enum, Enum)}
+     */
+    public String getEdgeName(int id) {
+        return edgeNames[id];
+    }
+}
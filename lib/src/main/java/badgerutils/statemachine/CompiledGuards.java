@@ -0,0 +1,200 @@
+package badgerutils.statemachine;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, precompiled form of {@link Guards}.
+ * <p>
+ *     Every exact, 'state to any', 'any to state' and 'any to any' guard matching a transition is merged ahead of time
+ *     into one array, indexed by {@code [previousState.ordinal()][nextState.ordinal()]}. Looking up the guards of a
+ *     transition is two array indexes and never allocates.
+ * <p>
+ *     Static guards, created with {@link StateGuardCondition#allow()} and {@link StateGuardCondition#deny()}, are folded
+ *     into a bitset adjacency matrix instead, even when they are pinned. A statically denied transition has no guards to evaluate, and a statically
+ *     allowed one only has its dynamic guards.
+ * <p>
+ *     Transitions without dynamic guards share one empty guard array and one empty id array, so the table of a machine
+ *     with few guards costs little more than its outer arrays.
+ * <p>
+ *     Created with {@link Guards#compile(Class)}. Guards added to the {@code Guards} afterward are not reflected.
+ * @param <T> the enum type
+ */
+public final class CompiledGuards<T extends Enum<T>> {
+    /**
+     * The id used where no guard applies, such as a transition that no guard rejected
+     */
+    public static final int NO_GUARD = -1;
+
+    private static final StateGuardCondition<?>[] NO_GUARDS = new StateGuardCondition<?>[0];
+    private static final int[] NO_IDS = new int[0];
+
+    private final StateGuardCondition<T>[][][] table;
+    private final int[][][] guardIds;
+    private final StateGuardCondition<T>[] distinctGuards;
+    private final boolean[] targetIndependent;
+    private final String[] guardNames;
+    private final boolean hasTargetIndependentGuards;
+    private final long[] allowedMatrix;
+    private final int stateCount;
+
+    @SuppressWarnings("unchecked")
+    CompiledGuards(Class<T> enumType, Guards<T> guards, StateHierarchy<T> hierarchy) {
+        T[] states = enumType.getEnumConstants();
+        StateGuardCondition<T>[] none = (StateGuardCondition<T>[]) NO_GUARDS;
+        table = (StateGuardCondition<T>[][][]) new StateGuardCondition[states.length][states.length][];
+        stateCount = states.length;
+        allowedMatrix = new long[(stateCount * stateCount + Long.SIZE - 1) / Long.SIZE];
+
+        for (T previousState : states) {
+            for (T nextState : states) {
+                List<StateGuardCondition<T>> dynamicGuards = new ArrayList<>();
+                boolean allowed = true;
+                for (StateGuardCondition<T> guard : guards.getGuards(new Transition<>(previousState, nextState), hierarchy)) {
+                    if (unwrap(guard) instanceof StaticGuardCondition<T> staticGuard) {
+                        allowed &= staticGuard.isAllowed();
+                    } else {
+                        dynamicGuards.add(guard);
+                    }
+                }
+
+                if (allowed) {
+                    int index = previousState.ordinal() * stateCount + nextState.ordinal();
+                    allowedMatrix[index / Long.SIZE] |= 1L << (index % Long.SIZE);
+                }
+                table[previousState.ordinal()][nextState.ordinal()] = !allowed || dynamicGuards.isEmpty() ? none : dynamicGuards.toArray(none);
+            }
+        }
+
+        Map<StateGuardCondition<T>, Integer> ids = new IdentityHashMap<>();
+        guardIds = new int[states.length][states.length][];
+        for (int previous = 0; previous < states.length; previous++) {
+            for (int next = 0; next < states.length; next++) {
+                StateGuardCondition<T>[] cell = table[previous][next];
+                guardIds[previous][next] = cell.length == 0 ? NO_IDS : new int[cell.length];
+                for (int i = 0; i < cell.length; i++) {
+                    guardIds[previous][next][i] = ids.computeIfAbsent(cell[i], key -> ids.size());
+                }
+            }
+        }
+        distinctGuards = (StateGuardCondition<T>[]) new StateGuardCondition[ids.size()];
+        ids.forEach((guard, id) -> distinctGuards[id] = guard);
+
+        targetIndependent = new boolean[distinctGuards.length];
+        boolean anyTargetIndependent = false;
+        for (int id = 0; id < distinctGuards.length; id++) {
+            StateGuardCondition<T> guard = distinctGuards[id];
+            if (guard instanceof PinnedGuardCondition<T> pinned) guard = pinned.getGuard();
+            targetIndependent[id] = guard instanceof TargetIndependentGuardCondition;
+            anyTargetIndependent |= targetIndependent[id];
+        }
+        hasTargetIndependentGuards = anyTargetIndependent;
+
+        guardNames = new String[distinctGuards.length];
+        for (int id = 0; id < distinctGuards.length; id++) {
+            guardNames[id] = TransitionRules.nameOf(unwrap(distinctGuards[id]), guards.describe(distinctGuards[id]));
+        }
+        TransitionRules.numberRepeats(guardNames);
+    }
+
+    private static <T extends Enum<T>> StateGuardCondition<T> unwrap(StateGuardCondition<T> guard) {
+        if (guard instanceof PinnedGuardCondition<T> pinned) guard = pinned.getGuard();
+        if (guard instanceof TargetIndependentGuardCondition<T> independent) guard = independent.getGuard();
+        return guard;
+    }
+
+    /**
+     * Checks the static guards of a transition, without evaluating any dynamic guards
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     * @return false if a static 'deny' guard matches the transition, otherwise true
+     */
+    public boolean isStaticallyAllowed(T previousState, T nextState) {
+        int index = previousState.ordinal() * stateCount + nextState.ordinal();
+        return (allowedMatrix[index / Long.SIZE] & (1L << (index % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Gets all matching dynamic guards for a specified transition, in the same order as {@link Guards#getGuards(Transition)}
+     * <p>Static guards are not included, and the array is empty if the transition is statically denied. 
+     * The returned array is shared and must not be modified</p>
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     * @return the array of matching guards
+     */
+    public StateGuardCondition<T>[] getGuards(T previousState, T nextState) {
+        return table[previousState.ordinal()][nextState.ordinal()];
+    }
+
+    /**
+     * Similar to {@link #getGuards(Enum, Enum)}, using the states of {@code transition}
+     */
+    public StateGuardCondition<T>[] getGuards(Transition<T> transition) {
+        return getGuards(transition.previousState(), transition.nextState());
+    }
+
+    /**
+     * Gets the index of each guard returned by {@link #getGuards(Enum, Enum)}, at the same positions.
+     * Each distinct guard has one index, between 0 and {@link #getGuardCount()}, shared by every transition it matches.
+     * <p>The returned array is shared and must not be modified</p>
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     * @return the array of guard indexes
+     */
+    public int[] getGuardIds(T previousState, T nextState) {
+        return guardIds[previousState.ordinal()][nextState.ordinal()];
+    }
+
+    /**
+     * {@return the number of distinct guards}
+     */
+    public int getGuardCount() {
+        return distinctGuards.length;
+    }
+
+    /**
+     * {@return the guard with the index {@code id}}
+     * @param id the index of the guard, as returned by {@link #getGuardIds(Enum, Enum)}
+     */
+    public StateGuardCondition<T> getGuard(int id) {
+        return distinctGuards[id];
+    }
+
+    /**
+     * {@return the index of {@code guard}, or {@link #NO_GUARD} if it does not match any transition or is static}
+     * @param guard the guard, as it was added to the {@link Guards}
+     */
+    public int getGuardId(StateGuardCondition<T> guard) {
+        for (int id = 0; id < distinctGuards.length; id++) {
+            if (distinctGuards[id] == guard) return id;
+        }
+        return NO_GUARD;
+    }
+
+    /**
+     * {@return the name of the guard with the index {@code id}}
+     * <p>The name is given with {@link StateGuardCondition#named(String, StateGuardCondition)}, or is the rule the guard 
+     * was first added with. Repeated names are numbered, so every name is unique</p>
+     * @param id the index of the guard, as returned by {@link #getGuardIds(Enum, Enum)}
+     */
+    public String getGuardName(int id) {
+        return guardNames[id];
+    }
+
+    /**
+     * {@return whether the guard with the index {@code id} was created with {@link StateGuardCondition#targetIndependent(StateGuardCondition)}}
+     * @param id the index of the guard, as returned by {@link #getGuardIds(Enum, Enum)}
+     */
+    public boolean isTargetIndependent(int id) {
+        return targetIndependent[id];
+    }
+
+    /**
+     * {@return whether any guard was created with {@link StateGuardCondition#targetIndependent(StateGuardCondition)}}
+     */
+    public boolean hasTargetIndependentGuards() {
+        return hasTargetIndependentGuards;
+    }
+}
@@ -0,0 +1,210 @@
+package badgerutils.statemachine;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread-safe wrapper of a {@link StateMachine}, for requesting transitions from vision threads,
+ * NetworkTables listeners or {@code Notifier} loops.
+ * <p>
+ * The current state is held in one atomic word, the ordinal of the state plus a claimed bit, and can be read from any
+ * thread without locking. A transition claims the word with a compare-and-set from the current state, then runs
+ * {@link StateMachine}'s own guard check and state change, and publishes the new state when it releases the word.
+ * A guard check and the state change that follows it can therefore never interleave with another thread's transition.
+ * If another thread is already transitioning, {@link #tryChangeState(Enum)} fails immediately instead of blocking, and
+ * {@link #periodic()} defers its work to the next cycle. Checks such as {@link #canChangeState(Enum)} never claim the
+ * word; they evaluate the guards from a snapshot of the current state.
+ * </p>
+ * <p>
+ * Every feature of the wrapped {@code StateMachine}, such as memoization, profiling, history, hierarchy, listeners,
+ * logging and timeouts, runs under the claim. Once wrapped, the {@code StateMachine} forwards its own changes of state
+ * and checks to this wrapper, and can no longer be configured. Its statistics and history are written by whichever
+ * thread holds the claim. Requests made with {@link StateMachine#requestState(Enum, int)} and the triggers of
+ * {@link StateMachine#hasEnteredState(Enum)} must still only be used from the thread that calls {@code periodic()}.
+ * </p>
+ * Guards, edges and listeners may be called from any thread that requests a transition, and must be thread-safe
+ * themselves. While they run, {@link #getCurrentState()} still returns the previous state.
+ *
+ * @param <T> enum type
+ */
+public class ConcurrentStateMachine<T extends Enum<T>> {
+    private static final int CLAIMED = Integer.MIN_VALUE;
+
+    private final StateMachine<T> stateMachine;
+    private final T[] states;
+    private final AtomicInteger stateWord;
+    private volatile boolean guardCacheInvalidated;
+
+    /**
+     * Wraps {@code stateMachine}, which must not be changing state on another thread while it is wrapped
+     * @param stateMachine the configured state machine to wrap
+     * @throws IllegalStateException if {@code stateMachine} is already wrapped
+     */
+    public ConcurrentStateMachine(StateMachine<T> stateMachine) {
+        this.stateMachine = stateMachine;
+        this.states = stateMachine.getCurrentState().getDeclaringClass().getEnumConstants();
+        this.stateWord = new AtomicInteger(stateMachine.getCurrentState().ordinal());
+        stateMachine.setConcurrentOwner(this);
+    }
+
+    /**
+     * Creates a new {@link ConcurrentStateMachine} object with the current state set to {@code initialState}
+     * <p>The edges and guards are compiled when the {@code ConcurrentStateMachine} is created; any added afterward are ignored</p>
+     * @param initialState the intial state of the system
+     * @param stateEdges the edges of the system
+     * @param stateGuards the guards of the system
+     * @see Edges
+     * @see Guards
+     */
+    public ConcurrentStateMachine(T initialState, Edges<T> stateEdges, Guards<T> stateGuards) {
+        this(new StateMachine<>(initialState, stateEdges, stateGuards));
+    }
+
+    /**
+     * Similar to {@link #ConcurrentStateMachine(Enum, Edges, Guards)} except that {@code stateGuards} defaults to empty
+     */
+    public ConcurrentStateMachine(T initialState, Edges<T> stateEdges) {
+        this(initialState, stateEdges, Guards.empty());
+    }
+
+    /**
+     * Similar to {@link #ConcurrentStateMachine(Enum, Edges, Guards)} except that {@code stateEdges} defaults to empty
+     */
+    public ConcurrentStateMachine(T initialState, Guards<T> stateGuards) {
+        this(initialState, Edges.empty(), stateGuards);
+    }
+
+    /**
+     * {@return the current state of the system}
+     */
+    public T getCurrentState() {
+        return states[stateWord.get() & ~CLAIMED];
+    }
+
+    /**
+     * Checks whether the current system's state can change to {@code nextState} using the {@link Guards} provided.
+     * <p>The state is not allowed to change to itself. The guards are evaluated from a snapshot of the current state,
+     * without claiming it, so a check never makes another thread's {@link #tryChangeState(Enum)} fail. Memoization,
+     * profiling and history are not used. The result may already be out of date when it is returned, if another
+     * thread changes the state</p>
+     * @param nextState the potential next state of the system
+     * @return if the state can change to {@code nextState}
+     */
+    public boolean canChangeState(T nextState) {
+        return stateMachine.checkWithoutSideEffects(getCurrentState(), nextState) == StateMachine.ALLOWED;
+    }
+
+    /**
+     * Tries to change the state of the system to {@code nextState}, executing any matching {@link Edges}.
+     * <p>Fails without blocking if another thread is changing the state at the same time</p>
+     * @param nextState the potential next state of the system
+     * @return whether the state changed or not
+     */
+    public boolean tryChangeState(T nextState) {
+        if (!claim()) return false;
+        try {
+            return changeState(nextState);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Similar to {@link StateMachine#getTransitionFuture()}
+     */
+    public CompletableFuture<Void> getTransitionFuture() {
+        return stateMachine.getTransitionFuture();
+    }
+
+    /**
+     * Changes the state of the system to {@code nextState} without checking the {@link Guards} or running the {@link Edges}.
+     * <p>Fails without blocking if another thread is changing the state at the same time. Not recommended for general use</p>
+     * @param nextState the next state of the system
+     * @return whether the state was set
+     */
+    public boolean setStateWithoutGuardsOrEdges(T nextState) {
+        if (!claim()) return false;
+        try {
+            stateMachine.forceStateTo(nextState);
+            return true;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Similar to {@link StateMachine#periodic()}. Runs the timeouts, then claims the state once to publish statistics,
+     * apply the request queued with {@link StateMachine#requestState(Enum, int)}, write the log and end the cycle of
+     * {@link StateMachine#hasEnteredState(Enum)}.
+     * <p>Never blocks: if another thread is changing the state, the request stays queued and the rest of the cycle is
+     * deferred to the next call, so {@code hasEnteredState} stays true for one more cycle. Should be called once per loop
+     * from the main robot thread, which must also be the thread making requests</p>
+     */
+    public void periodic() {
+        stateMachine.tickTimeouts();
+        if (!claim()) return;
+        try {
+            stateMachine.publishPeriodic();
+            T requestedState = stateMachine.takeRequestedState();
+            if (requestedState != null) changeState(requestedState);
+            stateMachine.endCycle();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Similar to {@link StateMachine#invalidateGuardCache()}. If another thread is changing the state, the cache is
+     * cleared by the next thread to claim it
+     */
+    public void invalidateGuardCache() {
+        guardCacheInvalidated = true;
+        if (!claim()) return;
+        release();
+    }
+
+    /**
+     * Fires a timeout of the wrapped state machine
+     * @return false if another thread is changing the state, so the timeout must be retried
+     */
+    boolean fireTimeout(T state, T target) {
+        if (!claim()) return false;
+        try {
+            if (stateMachine.getClaimedState() == state) changeState(target);
+            return true;
+        } finally {
+            release();
+        }
+    }
+
+    private boolean changeState(T nextState) {
+        int result = stateMachine.checkTransitionTo(nextState);
+        if (result != StateMachine.ALLOWED) {
+            stateMachine.rejectTransitionTo(nextState, result);
+            return false;
+        }
+        stateMachine.applyTransitionTo(nextState);
+        return true;
+    }
+
+    /**
+     * Tries once to claim the state word, without waiting. Also used by {@link StateTransaction} to claim its participants
+     * @return whether the word was claimed
+     */
+    boolean claim() {
+        int word = stateWord.get();
+        if ((word & CLAIMED) != 0 || !stateWord.compareAndSet(word, word | CLAIMED)) return false;
+        if (guardCacheInvalidated) {
+            guardCacheInvalidated = false;
+            stateMachine.clearGuardCache();
+        }
+        return true;
+    }
+
+    /**
+     * Publishes the state of the wrapped state machine and releases the claim taken by {@link #claim()}
+     */
+    void release() {
+        stateWord.set(stateMachine.getClaimedState().ordinal());
+    }
+}
@@ -1,9 +1,6 @@
 package badgerutils.statemachine;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -25,7 +22,7 @@ import java.util.Set;
  * @param <T> the enum type
  */
 public class Edges<T extends Enum<T>> {
-    private final Map<Transition<T>, List<StateEdge<T>>> edges = new HashMap<>();
+    private final TransitionRules<T, StateEdge<T>> edges = new TransitionRules<>();
 
     /**
      * Creates a new empty {@link Edges}
@@ -122,22 +119,46 @@ public class Edges<T extends Enum<T>> {
      * @return the list of matching edges
      */
     public List<StateEdge<T>> getEdges(Transition<T> transition) {
-        ArrayList<StateEdge<T>> edges = new ArrayList<>();
-        edges.addAll(getEdgeFromKey(transition));
-        edges.addAll(getEdgeFromKey(new Transition<>(transition.previousState(), null)));
-        edges.addAll(getEdgeFromKey(new Transition<>(null, transition.nextState())));
-        edges.addAll(getEdgeFromKey(new Transition<>(null, null)));
-        return edges;
+        return getEdges(transition, StateHierarchy.empty());
     }
     
-    private List<StateEdge<T>> getEdgeFromKey(Transition<T> transition) {
-        return edges.getOrDefault(transition, new ArrayList<>());
+    /**
+     * Compiles these edges into an immutable lookup table, indexed by the ordinals of a transition's states
+     * @param enumType the class of the enum
+     * @return the compiled edges
+     * @see CompiledEdges
+     */
+    public CompiledEdges<T> compile(Class<T> enumType) {
+        return compile(enumType, StateHierarchy.empty());
+    }
+
+    /**
+     * Similar to {@link #compile(Class)}, except that rules naming a parent state in {@code hierarchy} also match all of its descendants
+     * @param enumType the class of the enum
+     * @param hierarchy the hierarchy of the states
+     * @return the compiled edges
+     * @see StateHierarchy
+     */
+    public CompiledEdges<T> compile(Class<T> enumType, StateHierarchy<T> hierarchy) {
+        return new CompiledEdges<>(enumType, this, hierarchy);
+    }
+
+    /**
+     * Gets all matching edges for a specified transition, where a rule naming any ancestor of a state also matches that state.
+     * <p>Keeps the order of {@link #getEdges(Transition)}: every exact match first, then 'state to any', 'any to state' and 'any to any'</p>
+     */
+    List<StateEdge<T>> getEdges(Transition<T> transition, StateHierarchy<T> hierarchy) {
+        return edges.match(transition, hierarchy);
+    }
+
+    /**
+     * {@return a description of the first rule {@code edge} was added with, or null if it was never added}
+     */
+    String describe(StateEdge<T> edge) {
+        return edges.describe(edge);
     }
     
     private void addAllPartialTransitions(Set<T> previousStates, Set<T> nextStates, StateEdge<T> edge) {
-        PartialTransition<T> partialPart = new PartialTransition<>(previousStates, nextStates);
-        for (Transition<T> transition : partialPart.expandToTransitions()){
-            edges.computeIfAbsent(transition, key -> new ArrayList<>()).add(edge);
-        }
+        edges.add(previousStates, nextStates, edge);
     }
 }
@@ -0,0 +1,27 @@
+package badgerutils.statemachine;
+
+import edu.wpi.first.wpilibj.RobotController;
+
+import java.util.function.LongSupplier;
+
+/**
+ * The default clock of {@link TransitionHistory} and the shared {@link StateTimerWheel}.
+ * <p>
+ *     Reads the FPGA clock through {@link RobotController#getFPGATime()}. When the WPILib HAL cannot be loaded, such as
+ *     in plain JVM unit tests, it falls back to {@link System#nanoTime()}, in microseconds since the clock was first used.
+ */
+final class FpgaClock {
+    static final LongSupplier MICROS = create();
+
+    private FpgaClock() {}
+
+    private static LongSupplier create() {
+        try {
+            RobotController.getFPGATime();
+            return RobotController::getFPGATime;
+        } catch (LinkageError e) {
+            long start = System.nanoTime();
+            return () -> (System.nanoTime() - start) / 1000;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package badgerutils.statemachine;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the combined guard result of each transition for the current cycle, 
+ * as the id of the rejecting guard or a negative status code.
+ * <p>
+ *     Entries are tagged with a generation that is advanced whenever the cycle changes or the cache is invalidated,
+ *     so clearing the cache never touches the arrays.
+ */
+final class GuardCache {
+    static final int MISS = Integer.MIN_VALUE;
+
+    private final LongSupplier cycleSupplier;
+    private final long[] generations;
+    private final int[] results;
+
+    private long cycle;
+    private long generation = 1;
+
+    GuardCache(LongSupplier cycleSupplier, int transitionCount) {
+        this.cycleSupplier = cycleSupplier;
+        this.generations = new long[transitionCount];
+        this.results = new int[transitionCount];
+        this.cycle = cycleSupplier.getAsLong();
+    }
+
+    /**
+     * {@return the cached result of the transition at {@code index}, or {@link #MISS} if it is not cached}
+     */
+    int get(int index) {
+        long currentCycle = cycleSupplier.getAsLong();
+        if (currentCycle != cycle) {
+            cycle = currentCycle;
+            generation++;
+        }
+        if (generations[index] != generation) return MISS;
+        return results[index];
+    }
+
+    void put(int index, int result) {
+        generations[index] = generation;
+        results[index] = result;
+    }
+
+    void invalidate() {
+        generation++;
+    }
+}
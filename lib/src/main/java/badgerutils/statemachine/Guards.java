@@ -1,9 +1,6 @@
 package badgerutils.statemachine;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -22,10 +19,13 @@ import java.util.Set;
  *         <li>{@link #stateToMultipleStates(Enum, Set, StateGuardCondition) State to states}</li>
  *         <li>{@link #multipleStatesToState(Set, Enum, StateGuardCondition) States to state}</li>
  *     </ul>
+ * <p>
+ *     Guards that never change, such as permanently blocked transitions, should use {@link StateGuardCondition#deny()} 
+ *     and {@link StateGuardCondition#allow()}. These are precomputed and never evaluated.
  * @param <T> the enum type
  */
 public class Guards <T extends Enum<T>> {
-    private final Map<Transition<T>, List<StateGuardCondition<T>>> guards = new HashMap<>();
+    private final TransitionRules<T, StateGuardCondition<T>> guards = new TransitionRules<>();
 
     /**
      * Creates a new empty {@link Guards}
@@ -122,22 +122,46 @@ public class Guards <T extends Enum<T>> {
      * @return the list of matching guards
      */
     public List<StateGuardCondition<T>> getGuards(Transition<T> transition) {
-        ArrayList<StateGuardCondition<T>> guards = new ArrayList<>();
-        guards.addAll(getGuardFromKey(transition));
-        guards.addAll(getGuardFromKey(new Transition<>(transition.previousState(), null)));
-        guards.addAll(getGuardFromKey(new Transition<>(null, transition.nextState())));
-        guards.addAll(getGuardFromKey(new Transition<>(null, null)));
-        return guards;   
+        return getGuards(transition, StateHierarchy.empty());
     }
     
-    private List<StateGuardCondition<T>> getGuardFromKey(Transition<T> transition) {
-        return guards.getOrDefault(transition, new ArrayList<>());
+    /**
+     * Compiles these guards into an immutable lookup table, indexed by the ordinals of a transition's states
+     * @param enumType the class of the enum
+     * @return the compiled guards
+     * @see CompiledGuards
+     */
+    public CompiledGuards<T> compile(Class<T> enumType) {
+        return compile(enumType, StateHierarchy.empty());
+    }
+
+    /**
+     * Similar to {@link #compile(Class)}, except that rules naming a parent state in {@code hierarchy} also match all of its descendants
+     * @param enumType the class of the enum
+     * @param hierarchy the hierarchy of the states
+     * @return the compiled guards
+     * @see StateHierarchy
+     */
+    public CompiledGuards<T> compile(Class<T> enumType, StateHierarchy<T> hierarchy) {
+        return new CompiledGuards<>(enumType, this, hierarchy);
+    }
+
+    /**
+     * Gets all matching guards for a specified transition, where a rule naming any ancestor of a state also matches that state.
+     * <p>Keeps the order of {@link #getGuards(Transition)}: every exact match first, then 'state to any', 'any to state' and 'any to any'</p>
+     */
+    List<StateGuardCondition<T>> getGuards(Transition<T> transition, StateHierarchy<T> hierarchy) {
+        return guards.match(transition, hierarchy);
+    }
+
+    /**
+     * {@return a description of the first rule {@code guard} was added with, or null if it was never added}
+     */
+    String describe(StateGuardCondition<T> guard) {
+        return guards.describe(guard);
     }
 
     private void addAllPartialTransitions(Set<T> previousStates, Set<T> nextStates, StateGuardCondition<T> guard) {
-        PartialTransition<T> partialPart = new PartialTransition<>(previousStates, nextStates);
-        for (Transition<T> transition : partialPart.expandToTransitions()){
-            guards.computeIfAbsent(transition, key -> new ArrayList<>()).add(guard);
-        }
+        guards.add(previousStates, nextStates, guard);
     }
 }
@@ -0,0 +1,27 @@
+package badgerutils.statemachine;
+
+/**
+ * A guard with an explicit name, used by the profiler and the logger instead of the rule it was registered with.
+ * <p>Created with {@link StateGuardCondition#named(String, StateGuardCondition)}</p>
+ *
+ * @param <T> enum type
+ */
+final class NamedGuardCondition<T extends Enum<T>> implements StateGuardCondition<T> {
+    private final String name;
+    private final StateGuardCondition<T> guard;
+
+    NamedGuardCondition(String name, StateGuardCondition<T> guard) {
+        this.name = name;
+        this.guard = guard;
+    }
+
+    @Override
+    public boolean canChange(Transition<T> transition) {
+        return guard.canChange(transition);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
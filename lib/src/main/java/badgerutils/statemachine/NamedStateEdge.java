@@ -0,0 +1,27 @@
+package badgerutils.statemachine;
+
+/**
+ * An edge with an explicit name, used by the profiler instead of the rule it was registered with.
+ * <p>Created with {@link StateEdge#named(String, StateEdge)}</p>
+ *
+ * @param <T> enum type
+ */
+final class NamedStateEdge<T extends Enum<T>> implements StateEdge<T> {
+    private final String name;
+    private final StateEdge<T> edge;
+
+    NamedStateEdge(String name, StateEdge<T> edge) {
+        this.name = name;
+        this.edge = edge;
+    }
+
+    @Override
+    public void performTransition(Transition<T> transition) {
+        edge.performTransition(transition);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
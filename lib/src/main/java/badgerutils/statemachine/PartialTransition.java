@@ -1,16 +1,35 @@
 package badgerutils.statemachine;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
 /**
  * This should not be created by any implementation of the {@link StateMachine}. It is used internally to match states
+ * <p>An empty set of states matches any state. Non-empty sets are stored as {@link EnumSet}s, so matching is a bit test</p>
  */
 public record PartialTransition<T extends Enum<T>>(Set<T> previousStates, Set<T> nextStates) {
     public PartialTransition {
-        previousStates = Set.copyOf(previousStates);
-        nextStates = Set.copyOf(nextStates);
+        previousStates = toEnumSet(previousStates);
+        nextStates = toEnumSet(nextStates);
+    }
+
+    private static <T extends Enum<T>> Set<T> toEnumSet(Set<T> states) {
+        return states.isEmpty() ? Set.of() : Collections.unmodifiableSet(EnumSet.copyOf(states));
+    }
+
+    /**
+     * Checks whether the transition from {@code previousState} to {@code nextState} is one of the transitions of this
+     * {@link PartialTransition}, without creating them
+     * @param previousState the previous state of the system
+     * @param nextState the next state of the system
+     * @return whether the transition matches
+     */
+    public boolean matches(T previousState, T nextState) {
+        return (previousStates.isEmpty() || previousStates.contains(previousState))
+                && (nextStates.isEmpty() || nextStates.contains(nextState));
     }
 
     /**
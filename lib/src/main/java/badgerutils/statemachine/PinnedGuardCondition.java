@@ -0,0 +1,24 @@
+package badgerutils.statemachine;
+
+/**
+ * Marks a guard whose position must not change when guards are reordered.
+ * <p>Created with {@link StateGuardCondition#pinned(StateGuardCondition)}</p>
+ *
+ * @param <T> enum type
+ */
+final class PinnedGuardCondition<T extends Enum<T>> implements StateGuardCondition<T> {
+    private final StateGuardCondition<T> guard;
+
+    PinnedGuardCondition(StateGuardCondition<T> guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public boolean canChange(Transition<T> transition) {
+        return guard.canChange(transition);
+    }
+
+    StateGuardCondition<T> getGuard() {
+        return guard;
+    }
+}
@@ -0,0 +1,33 @@
+package badgerutils.statemachine;
+
+/**
+ * The guard inputs of the request currently being replayed by {@link StateMachineReplay}.
+ * <p>
+ *     Guards built for replay read their inputs from here instead of from sensors,
+ *     using the same indices the inputs were recorded with in {@link ReplayLog#record(long, Enum, Enum, double...)}.
+ */
+public final class ReplayInputs {
+    private final double[] values;
+
+    ReplayInputs(int inputCount) {
+        this.values = new double[inputCount];
+    }
+
+    void load(ReplayLog<?> log, int index) {
+        log.copyInputs(index, values);
+    }
+
+    /**
+     * {@return the value of guard input {@code input}}
+     */
+    public double get(int input) {
+        return values[input];
+    }
+
+    /**
+     * {@return whether guard input {@code input} is non-zero}
+     */
+    public boolean getBoolean(int input) {
+        return values[input] != 0;
+    }
+}
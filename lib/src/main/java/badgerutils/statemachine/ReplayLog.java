@@ -0,0 +1,242 @@
+package badgerutils.statemachine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A recording of the requests made to a {@link StateMachine}, used by {@link StateMachineReplay} to reproduce them offline.
+ * <p>
+ *     Each entry stores a timestamp, the requested state, the state of the machine after the request, and a fixed number
+ *     of guard inputs: the values the guards read when the request was made, stored as doubles
+ *     (booleans are stored as 0 or 1). Forced changes made with {@link StateMachine#setStateWithoutGuardsOrEdges(Enum)}
+ *     are stored as entries too, and are replayed without checking the guards.
+ * <p>
+ *     A state machine records every change of state into a log with
+ *     {@link StateMachine#enableRecording(ReplayLog, java.util.function.LongSupplier, java.util.function.DoubleSupplier...)},
+ *     whether it comes from {@code tryChangeState}, a request, a timeout or a forced change:
+ *     <pre>{@code
+ *     ReplayLog<ArmState> replayLog = new ReplayLog<>(ArmState.STOWED, 2);
+ *     stateMachine.enableRecording(replayLog, RobotController::getFPGATime, () -> armAngle, () -> hasGamePiece ? 1 : 0);
+ *     }</pre>
+ * <p>
+ *     Logs are saved with {@link #writeTo(OutputStream)} in a simple binary format, and loaded with {@link #readFrom(InputStream, Class)}.
+ *     Recordings written to AdvantageKit with {@link StateMachine#enableRecording(String, java.util.function.DoubleSupplier...)}
+ *     are loaded with {@link AdvantageKitReplayReader}.
+ * @param <T> enum type
+ */
+public class ReplayLog<T extends Enum<T>> {
+    private static final int MAGIC = 0x42534d52;
+    private static final int VERSION = 2;
+
+    private final T initialState;
+    private final int inputCount;
+    private final T[] states;
+
+    private long[] timestamps = new long[64];
+    private short[] requestedStates = new short[64];
+    private short[] resultingStates = new short[64];
+    private boolean[] forced = new boolean[64];
+    private double[] inputs;
+    private int size;
+
+    /**
+     * Creates a new empty {@link ReplayLog}
+     * @param initialState the state of the machine before the first request
+     * @param inputCount the number of guard inputs stored with each request
+     */
+    public ReplayLog(T initialState, int inputCount) {
+        if (inputCount < 0) {
+            throw new IllegalArgumentException("inputCount must not be negative, was " + inputCount);
+        }
+        this.initialState = initialState;
+        this.inputCount = inputCount;
+        this.states = initialState.getDeclaringClass().getEnumConstants();
+        this.inputs = new double[64 * inputCount];
+    }
+
+    /**
+     * Adds a request to the end of the log
+     * @param timestamp the time of the request, in microseconds
+     * @param requestedState the state passed to {@link StateMachine#tryChangeState(Enum)}
+     * @param resultingState the state of the machine after the request
+     * @param guardInputs the values the guards read, exactly {@link #getInputCount()} of them
+     * @return reference for method chaining
+     * @throws IllegalArgumentException if the number of guard inputs is wrong
+     */
+    public ReplayLog<T> record(long timestamp, T requestedState, T resultingState, double... guardInputs) {
+        return add(timestamp, requestedState, resultingState, false, guardInputs);
+    }
+
+    /**
+     * Adds a forced change of state, made with {@link StateMachine#setStateWithoutGuardsOrEdges(Enum)}, to the end of the log
+     * @param timestamp the time of the change, in microseconds
+     * @param state the state the machine was set to
+     * @param guardInputs the values the guards read, exactly {@link #getInputCount()} of them
+     * @return reference for method chaining
+     * @throws IllegalArgumentException if the number of guard inputs is wrong
+     */
+    public ReplayLog<T> recordForced(long timestamp, T state, double... guardInputs) {
+        return add(timestamp, state, state, true, guardInputs);
+    }
+
+    private ReplayLog<T> add(long timestamp, T requestedState, T resultingState, boolean isForced, double[] guardInputs) {
+        if (guardInputs.length != inputCount) {
+            throw new IllegalArgumentException("Expected " + inputCount + " guard inputs, got " + guardInputs.length);
+        }
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            requestedStates = Arrays.copyOf(requestedStates, capacity);
+            resultingStates = Arrays.copyOf(resultingStates, capacity);
+            forced = Arrays.copyOf(forced, capacity);
+            inputs = Arrays.copyOf(inputs, capacity * inputCount);
+        }
+        timestamps[size] = timestamp;
+        requestedStates[size] = (short) requestedState.ordinal();
+        resultingStates[size] = (short) resultingState.ordinal();
+        forced[size] = isForced;
+        System.arraycopy(guardInputs, 0, inputs, size * inputCount, inputCount);
+        size++;
+        return this;
+    }
+
+    /**
+     * {@return the state of the machine before the first request}
+     */
+    public T getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * {@return the number of guard inputs stored with each request}
+     */
+    public int getInputCount() {
+        return inputCount;
+    }
+
+    /**
+     * {@return the number of requests in the log}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@return the time of the request at {@code index}, in microseconds}
+     */
+    public long getTimestamp(int index) {
+        return timestamps[checkIndex(index)];
+    }
+
+    /**
+     * {@return the state requested at {@code index}}
+     */
+    public T getRequestedState(int index) {
+        return states[requestedStates[checkIndex(index)]];
+    }
+
+    /**
+     * {@return the state of the machine after the request at {@code index}}
+     */
+    public T getResultingState(int index) {
+        return states[resultingStates[checkIndex(index)]];
+    }
+
+    /**
+     * {@return whether the entry at {@code index} is a forced change instead of a request}
+     */
+    public boolean isForced(int index) {
+        return forced[checkIndex(index)];
+    }
+
+    /**
+     * {@return guard input {@code input} of the request at {@code index}}
+     */
+    public double getInput(int index, int input) {
+        return inputs[checkIndex(index) * inputCount + input];
+    }
+
+    void copyInputs(int index, double[] destination) {
+        System.arraycopy(inputs, index * inputCount, destination, 0, inputCount);
+    }
+
+    /**
+     * Removes every entry, keeping the capacity
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Writes the log to {@code out} in the binary format read by {@link #readFrom(InputStream, Class)}.
+     * The stream is not closed.
+     * @param out the stream to write to
+     * @throws IOException if the stream throws
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(initialState.getDeclaringClass().getName());
+        data.writeShort(initialState.ordinal());
+        data.writeInt(inputCount);
+        data.writeInt(size);
+        for (int index = 0; index < size; index++) {
+            data.writeLong(timestamps[index]);
+            data.writeShort(requestedStates[index]);
+            data.writeShort(resultingStates[index]);
+            data.writeBoolean(forced[index]);
+            for (int input = 0; input < inputCount; input++) {
+                data.writeDouble(inputs[index * inputCount + input]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads a log written by {@link #writeTo(OutputStream)}, including logs of the first version, which have no forced
+     * changes. The stream is not closed.
+     * @param in the stream to read from
+     * @param enumType the enum type of the recorded state machine
+     * @return the log that was read
+     * @param <I> enum type
+     * @throws IOException if the stream throws, or does not contain a log of {@code enumType}
+     */
+    public static <I extends Enum<I>> ReplayLog<I> readFrom(InputStream in, Class<I> enumType) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("Not a state machine replay log");
+        int version = data.readInt();
+        if (version != 1 && version != VERSION) throw new IOException("Unsupported replay log version " + version);
+        String enumName = data.readUTF();
+        if (!enumName.equals(enumType.getName())) {
+            throw new IOException("Replay log was recorded for " + enumName + ", not " + enumType.getName());
+        }
+
+        I[] states = enumType.getEnumConstants();
+        ReplayLog<I> log = new ReplayLog<>(states[data.readShort()], data.readInt());
+        int size = data.readInt();
+        double[] guardInputs = new double[log.inputCount];
+        for (int index = 0; index < size; index++) {
+            long timestamp = data.readLong();
+            I requestedState = states[data.readShort()];
+            I resultingState = states[data.readShort()];
+            boolean isForced = version != 1 && data.readBoolean();
+            for (int input = 0; input < guardInputs.length; input++) {
+                guardInputs[input] = data.readDouble();
+            }
+            log.add(timestamp, requestedState, resultingState, isForced, guardInputs);
+        }
+        return log;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for replay log of size " + size);
+        }
+        return index;
+    }
+}
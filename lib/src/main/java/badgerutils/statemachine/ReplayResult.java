@@ -0,0 +1,56 @@
+package badgerutils.statemachine;
+
+import java.util.List;
+
+/**
+ * The result of {@link StateMachineReplay#run(ReplayLog)}
+ * @param requestCount the number of requests replayed
+ * @param elapsedNanos how long the replay took, in nanoseconds
+ * @param divergences every request where the replayed state did not match the recorded state
+ * @param <T> enum type
+ */
+public record ReplayResult<T extends Enum<T>>(int requestCount, long elapsedNanos, List<Divergence<T>> divergences) {
+
+    /**
+     * A request where the replayed state did not match the recorded state
+     * @param index the index of the request in the log
+     * @param timestamp the time of the request, in microseconds
+     * @param requestedState the state that was requested
+     * @param expectedState the recorded state after the request
+     * @param actualState the replayed state after the request
+     * @param <T> enum type
+     */
+    public record Divergence<T extends Enum<T>>(int index, long timestamp, T requestedState, T expectedState, T actualState) {
+        @Override
+        public String toString() {
+            return "#" + index + " at " + timestamp + ": requested " + requestedState
+                    + ", expected " + expectedState + " but was " + actualState;
+        }
+    }
+
+    /**
+     * {@return whether the replay matched the recording exactly}
+     */
+    public boolean matches() {
+        return divergences.isEmpty();
+    }
+
+    /**
+     * {@return the number of requests replayed per second}
+     */
+    public double requestsPerSecond() {
+        return elapsedNanos == 0 ? Double.POSITIVE_INFINITY : requestCount * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder()
+                .append("Replayed ").append(requestCount).append(" requests in ")
+                .append(String.format("%.3f ms (%.0f requests/s), ", elapsedNanos / 1e6, requestsPerSecond()))
+                .append(divergences.size()).append(" divergences");
+        for (Divergence<T> divergence : divergences) {
+            builder.append("\n  ").append(divergence);
+        }
+        return builder.toString();
+    }
+}
@@ -12,4 +12,34 @@ public interface StateEdge<T extends Enum<T>> {
      * @param transition the transition that the edge is being executed at
      */
     void performTransition(Transition<T> transition);
+
+    /**
+     * Marks an edge as asynchronous, so that it is run on a background thread instead of blocking the state change.
+     * <p>
+     *     The state still changes immediately. Asynchronous edges of one {@link StateMachine} run in transition order, after
+     *     the synchronous edges of the same transition. Use {@link StateMachine#getTransitionFuture()} or 
+     *     {@link StateMachine#isTransitionSettled()} to check whether they have finished.
+     * </p>
+     * An example would be applying motor configurations over CAN, which can take longer than a loop.
+     * @param edge the edge to run asynchronously
+     * @return the asynchronous edge
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateEdge<T> async(StateEdge<T> edge) {
+        return new AsyncStateEdge<>(edge);
+    }
+
+    /**
+     * Names {@code edge} for {@link StateMachine#enableProfiling(String, int)}.
+     * <p>Edges without a name are named after the first rule they were registered with, such as {@code "DISABLED -> any"},
+     * or after the state they enter or exit in a {@link StateHierarchy}</p>
+     * @param name the name of the edge
+     * @param edge the edge to name
+     * @return an edge that behaves like {@code edge}, named {@code name}
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateEdge<T> named(String name, StateEdge<T> edge) {
+        if (edge instanceof AsyncStateEdge<T> asyncEdge) return async(named(name, asyncEdge.getEdge()));
+        return new NamedStateEdge<>(name, edge);
+    }
 }
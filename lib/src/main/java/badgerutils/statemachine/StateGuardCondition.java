@@ -13,4 +13,67 @@ public interface StateGuardCondition<T extends Enum<T>> {
      * @return whether the state can switch to the {@code nextState} of the transition
      */
     boolean canChange(Transition<T> transition);
+
+    /**
+     * Creates a static guard that always allows the transition.
+     * <p>Static guards are folded into a precomputed matrix when the {@link StateMachine} is created, and are never evaluated.
+     * A transition with only static 'allow' guards runs no guards at all.</p>
+     * @return a guard that always allows the transition
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateGuardCondition<T> allow() {
+        return StaticGuardCondition.of(true);
+    }
+
+    /**
+     * Creates a static guard that always blocks the transition.
+     * <p>Static guards are folded into a precomputed matrix when the {@link StateMachine} is created, and are never evaluated.
+     * A transition blocked by a static 'deny' guard is rejected without running any of its other guards.</p>
+     * @return a guard that always blocks the transition
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateGuardCondition<T> deny() {
+        return StaticGuardCondition.of(false);
+    }
+
+    /**
+     * Marks {@code guard} so that it keeps its position when guards are reordered by 
+     * {@link StateMachine#enableAdaptiveGuardOrdering(int)}.
+     * <p>Guards are never moved past a pinned guard, so use this for guards with side effects that other guards depend on</p>
+     * @param guard the guard to pin
+     * @return a guard that behaves like {@code guard}, but is never reordered
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateGuardCondition<T> pinned(StateGuardCondition<T> guard) {
+        return new PinnedGuardCondition<>(guard);
+    }
+
+    /**
+     * Marks {@code guard} as depending only on the previous state and the rest of the robot, never on the next state.
+     * <p>{@link StateMachine#allowedNextStates()} and {@link StateMachine#allowedNextStatesMask()} evaluate such a guard 
+     * once per call instead of once per outgoing transition, and reuse the result for every other transition it matches</p>
+     * @param guard the guard whose result is the same for every next state
+     * @return a guard that behaves like {@code guard}, but is evaluated once per call to {@code allowedNextStates}
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateGuardCondition<T> targetIndependent(StateGuardCondition<T> guard) {
+        if (guard instanceof StaticGuardCondition || guard instanceof TargetIndependentGuardCondition) return guard;
+        if (guard instanceof PinnedGuardCondition<T> pinned) return pinned(targetIndependent(pinned.getGuard()));
+        return new TargetIndependentGuardCondition<>(guard);
+    }
+
+    /**
+     * Names {@code guard} for {@link StateMachine#enableProfiling(String, int)} and {@link StateMachine#enableLogging(String)}.
+     * <p>Guards without a name are named after the first rule they were registered with, such as {@code "DISABLED -> any"}</p>
+     * @param name the name of the guard
+     * @param guard the guard to name
+     * @return a guard that behaves like {@code guard}, named {@code name}
+     * @param <T> enum type
+     */
+    static <T extends Enum<T>> StateGuardCondition<T> named(String name, StateGuardCondition<T> guard) {
+        if (guard instanceof StaticGuardCondition) return guard;
+        if (guard instanceof PinnedGuardCondition<T> pinned) return pinned(named(name, pinned.getGuard()));
+        if (guard instanceof TargetIndependentGuardCondition<T> independent) return targetIndependent(named(name, independent.getGuard()));
+        return new NamedGuardCondition<>(name, guard);
+    }
 }
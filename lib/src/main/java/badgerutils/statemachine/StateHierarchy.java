@@ -0,0 +1,157 @@
+package badgerutils.statemachine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups states into parent (composite) states, such as {@code INTAKING -> {DEPLOYING, RUNNING, RETRACTING}}.
+ * <p>
+ *     Parents are constants of the same enum as their children. Any {@link Edges} or {@link Guards} rule that names a
+ *     parent state also matches all of its descendants, so a rule like 'INTAKING to any' applies when leaving any
+ *     of the intaking states for a state outside of INTAKING. A move between two intaking states does not leave
+ *     INTAKING, so it does not match that rule. Neither does a move from INTAKING itself to one of its children, which
+ *     does not exit INTAKING either. A rule is matched at most once per transition.
+ * <p>
+ *     Entry and exit edges run along the path between two states. When changing from one state to another, the exit
+ *     edges of the previous state and its ancestors run first, from the innermost state outward, up to but not including
+ *     the closest ancestor both states share. The matching transition edges run next, followed by the entry edges from
+ *     the outermost state inward, ending with the next state.
+ * <p>
+ *     The hierarchy is flattened into the lookup tables of {@link CompiledEdges} and {@link CompiledGuards} when the
+ *     {@link StateMachine} is created, so a deep hierarchy costs the same to dispatch as a flat one.
+ * @param <T> the enum type
+ */
+public class StateHierarchy<T extends Enum<T>> {
+    private final Map<T, T> parents = new HashMap<>();
+    private final Map<T, List<StateEdge<T>>> entryEdges = new HashMap<>();
+    private final Map<T, List<StateEdge<T>>> exitEdges = new HashMap<>();
+
+    /**
+     * Creates a new empty {@link StateHierarchy}, where every state is independent
+     * @return a new {@code StateHierarchy}
+     * @param <I> the type needed for the {@code StateHierarchy}
+     */
+    public static <I extends Enum<I>> StateHierarchy<I> empty() {
+        return new StateHierarchy<>();
+    }
+
+    /**
+     * Makes {@code children} the children of {@code parent}
+     * @param parent the parent state
+     * @param children the states inside of {@code parent}
+     * @return reference for method chaining
+     * @throws IllegalArgumentException if a child already has a parent, or if the hierarchy would contain a cycle
+     */
+    public StateHierarchy<T> addChildren(T parent, Set<T> children) {
+        for (T child : children) {
+            if (parents.containsKey(child)) {
+                throw new IllegalArgumentException(child + " already has the parent " + parents.get(child));
+            }
+            if (isDescendantOf(parent, child)) {
+                throw new IllegalArgumentException(child + " cannot be a child of its descendant " + parent);
+            }
+            parents.put(child, parent);
+        }
+        return this;
+    }
+
+    /**
+     * Adds an edge that runs whenever the system enters {@code state} from outside of it
+     * @param state the state being entered
+     * @param edge the function to execute when {@code state} is entered
+     * @return reference for method chaining
+     */
+    public StateHierarchy<T> onEntry(T state, StateEdge<T> edge) {
+        entryEdges.computeIfAbsent(state, key -> new ArrayList<>()).add(edge);
+        return this;
+    }
+
+    /**
+     * Adds an edge that runs whenever the system leaves {@code state} for a state outside of it
+     * @param state the state being exited
+     * @param edge the function to execute when {@code state} is exited
+     * @return reference for method chaining
+     */
+    public StateHierarchy<T> onExit(T state, StateEdge<T> edge) {
+        exitEdges.computeIfAbsent(state, key -> new ArrayList<>()).add(edge);
+        return this;
+    }
+
+    /**
+     * {@return the parent of {@code state}, or null if it has none}
+     * @param state the child state
+     */
+    public T getParent(T state) {
+        return parents.get(state);
+    }
+
+    /**
+     * {@return whether {@code state} is {@code ancestor}, or is inside of it}
+     * @param state the possible descendant
+     * @param ancestor the possible ancestor
+     */
+    public boolean isDescendantOf(T state, T ancestor) {
+        for (T current = state; current != null; current = parents.get(current)) {
+            if (current == ancestor) return true;
+        }
+        return false;
+    }
+
+    /**
+     * {@return {@code state} followed by each of its ancestors, from the innermost outward}
+     */
+    List<T> getPathToRoot(T state) {
+        if (!parents.containsKey(state)) return List.of(state);
+        List<T> path = new ArrayList<>();
+        for (T current = state; current != null; current = parents.get(current)) {
+            path.add(current);
+        }
+        return path;
+    }
+
+    /**
+     * {@return a description of {@code edge}, such as {@code "enter DISABLED"}, or null if it is not an entry or exit edge}
+     */
+    String describe(StateEdge<T> edge) {
+        for (Map.Entry<T, List<StateEdge<T>>> entry : entryEdges.entrySet()) {
+            if (entry.getValue().contains(edge)) return "enter " + entry.getKey();
+        }
+        for (Map.Entry<T, List<StateEdge<T>>> exit : exitEdges.entrySet()) {
+            if (exit.getValue().contains(edge)) return "exit " + exit.getKey();
+        }
+        return null;
+    }
+
+    /**
+     * {@return the exit edges or the entry edges of a transition, in the order they run}
+     * @param transition the transition to find the edges of
+     * @param exit whether to return the exit edges, or the entry edges
+     */
+    List<StateEdge<T>> getPathEdges(Transition<T> transition, boolean exit) {
+        List<T> previousPath = getPathToRoot(transition.previousState());
+        List<T> nextPath = getPathToRoot(transition.nextState());
+
+        List<StateEdge<T>> edges = new ArrayList<>();
+        if (exit) {
+            for (T state : previousPath) {
+                if (nextPath.contains(state)) break;
+                edges.addAll(exitEdges.getOrDefault(state, List.of()));
+            }
+        } else {
+            List<T> entered = new ArrayList<>();
+            for (T state : nextPath) {
+                if (previousPath.contains(state)) break;
+                entered.add(state);
+            }
+            Collections.reverse(entered);
+            for (T state : entered) {
+                edges.addAll(entryEdges.getOrDefault(state, List.of()));
+            }
+        }
+        return edges;
+    }
+}
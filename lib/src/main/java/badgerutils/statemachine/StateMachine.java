@@ -1,6 +1,16 @@
 package badgerutils.statemachine;
 
 import lombok.Getter;
+import org.littletonrobotics.junction.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
 
 /**
  * Implements the advanced features possible with a state machine.
@@ -13,18 +23,94 @@ import lombok.Getter;
  * <i>Guards</i> are functions that control whether a state can transition to another.
  * An example would be disallowing an arm to swing through the chassis if another mechanism was in the way.
  * </p>
+ * <p>
+ * Once wrapped in a {@link ConcurrentStateMachine}, changes of state and checks go through the wrapper. The configuration
+ * methods, such as {@link #after(Enum, double, Enum)} and the {@code enable} methods, throw an
+ * {@link IllegalStateException} after wrapping. {@link #requestState(Enum, int)}, {@link #hasEnteredState(Enum)} and
+ * {@link #hasTransitioned(Enum, Enum)} must only be used from the thread that calls {@link #periodic()}.
+ * </p>
  *
  * @param <T> enum type
  */
 public class StateMachine<T extends Enum<T>> {
-    private final Edges<T> stateEdges;
-    private final Guards<T> stateGuards;
-    
+    static final int ALLOWED = CompiledGuards.NO_GUARD;
+    static final int SAME_STATE = -2;
+    private static final int STATICALLY_DENIED = -3;
+    private static final AtomicLong NEXT_TRANSACTION_ORDER = new AtomicLong();
+
+    private final CompiledEdges<T> stateEdges;
+    private final CompiledGuards<T> stateGuards;
+    private final Transition<T>[][] transitions;
+    private GuardCache guardCache;
+    private AsyncEdgeQueue<T> asyncEdges;
+    private StateTimerWheel timerWheel;
+    private StateMachineLogger<T> logger;
+    private StateMachineRecorder<T> recorder;
+    private ConcurrentStateMachine<T> concurrentOwner;
+    private final long transactionOrder = NEXT_TRANSACTION_ORDER.getAndIncrement();
+    private final int[] passStamps;
+    private final boolean[] passResults;
+    private int pass;
+    private boolean passActive;
+
+    /**
+     * -- GETTER --
+     * Returns the profiler of this state machine, or null if profiling is not enabled.
+     */
+    @Getter
+    private StateMachineProfiler<T> profiler;
+
+    /**
+     * -- GETTER --
+     * Returns the transition history of this state machine, or null if history is not enabled.
+     */
     @Getter
+    private TransitionHistory<T> history;
+
+    /**
+     * -- GETTER --
+     * Returns the adaptive guard order of this state machine, or null if adaptive ordering is not enabled.
+     */
+    @Getter
+    private AdaptiveGuardOrder<T> adaptiveGuardOrder;
+
     private T currentState;
 
+    /**
+     * -- GETTER --
+     * Returns a counter that increases every time the state changes, so that a change can be detected with one comparison.
+     */
+    @Getter
+    private int stateVersion;
+
+    private final List<StateEdge<T>> stateListeners = new ArrayList<>();
+
+    private final int[] enteredVersions;
+    private final int[] transitionedVersions;
+    private int previousCycleVersion;
+    private int cycleVersion;
+
+    private T requestedState;
+    private int requestedPriority;
+
+    /**
+     * -- GETTER --
+     * Returns the number of requests queued since the last call to {@link #periodic()}.
+     */
+    @Getter
+    private int pendingRequestCount;
+
+    /**
+     * -- GETTER --
+     * Returns the total number of requests that were dropped because a request with a higher or equal priority was
+     * made in the same cycle.
+     */
+    @Getter
+    private long coalescedRequestCount;
+
     /**
      * Creates a new {@link StateMachine} object with the current state set to {@code initialState} 
+     * <p>The edges and guards are compiled when the {@code StateMachine} is created; any added afterward are ignored</p>
      * @param initialState the intial state of the system
      * @param stateEdges the edges of the system
      * @param stateGuards the guards of the system
@@ -32,9 +118,25 @@ public class StateMachine<T extends Enum<T>> {
      * @see Guards
      */
     public StateMachine(T initialState, Edges<T> stateEdges, Guards<T> stateGuards) {
+        this(initialState, stateEdges, stateGuards, StateHierarchy.empty());
+    }
+
+    /**
+     * Similar to {@link #StateMachine(Enum, Edges, Guards)}, except that the states are nested using {@code stateHierarchy}.
+     * <p>Edges and guards of a parent state also apply to all of its descendants, and the entry and exit edges of 
+     * the hierarchy run along the path between states</p>
+     * @param stateHierarchy the hierarchy of the states
+     * @see StateHierarchy
+     */
+    public StateMachine(T initialState, Edges<T> stateEdges, Guards<T> stateGuards, StateHierarchy<T> stateHierarchy) {
         this.currentState = initialState;
-        this.stateEdges = stateEdges;
-        this.stateGuards = stateGuards;
+        this.stateEdges = stateEdges.compile(initialState.getDeclaringClass(), stateHierarchy);
+        this.stateGuards = stateGuards.compile(initialState.getDeclaringClass(), stateHierarchy);
+        this.transitions = Transition.createTable(initialState.getDeclaringClass());
+        this.passStamps = this.stateGuards.hasTargetIndependentGuards() ? new int[this.stateGuards.getGuardCount()] : null;
+        this.passResults = passStamps == null ? null : new boolean[passStamps.length];
+        this.enteredVersions = new int[transitions.length];
+        this.transitionedVersions = new int[transitions.length * transitions.length];
     }
 
     /**
@@ -51,6 +153,23 @@ public class StateMachine<T extends Enum<T>> {
         this(initialState, Edges.empty(), stateGuards);
     }
 
+    /**
+     * {@return the current state of the system}
+     */
+    public T getCurrentState() {
+        if (concurrentOwner != null) return concurrentOwner.getCurrentState();
+        return currentState;
+    }
+
+    /**
+     * {@return the current state, as seen by the thread changing it}
+     * <p>Unlike {@link #getCurrentState()}, a wrapped state machine does not read the state word of its
+     * {@link ConcurrentStateMachine}, which still holds the previous state while a transition is in progress</p>
+     */
+    T getClaimedState() {
+        return currentState;
+    }
+
     /**
      * Checks whether the current system's state can change to {@code nextState} using the {@link Guards} provided. 
      * <p>The state is not allowed to change to itself</p>
@@ -58,39 +177,699 @@ public class StateMachine<T extends Enum<T>> {
      * @return if the state can change to {@code nextState}
      */
     public boolean canChangeState(T nextState) {
-        Transition<T> transition = new Transition<>(currentState, nextState);
-        
-        if(!transition.isValid()) return false;
-        
-        return stateGuards.getGuards(transition).stream().allMatch((guard) -> guard.canChange(transition));
+        if (concurrentOwner != null) return concurrentOwner.canChangeState(nextState);
+        return canTransition(transitions[currentState.ordinal()][nextState.ordinal()]);
     }
 
     /**
      * Tries to change the state of the system to {@code nextState}, executing any matching {@link Edges}. 
-     * <p>Uses {@link #canChangeState(Enum)} to verify that the state can actually change.</p>
+     * <p>Uses the same check as {@link #canChangeState(Enum)} to verify that the state can actually change. 
+     * The guards are evaluated only once per call.</p>
      * @param nextState the potential next state of the system
      * @return whether the state changed or not
      */
     public boolean tryChangeState(T nextState) {
-        if (!canChangeState(nextState)) {
+        if (concurrentOwner != null) return concurrentOwner.tryChangeState(nextState);
+        int result = checkTransitionTo(nextState);
+        if (result != ALLOWED) {
+            rejectTransitionTo(nextState, result);
             return false;
         }
-        Transition<T> transition = new Transition<>(currentState, nextState);
-        
-        for(StateEdge<T> edge : stateEdges.getEdges(transition)) {
-            edge.performTransition(transition);
+        applyTransitionTo(nextState);
+        return true;
+    }
+
+    /**
+     * {@return {@link #ALLOWED}, {@link #SAME_STATE}, {@link #STATICALLY_DENIED}, or the id of the guard that rejected the change}
+     */
+    int checkTransitionTo(T nextState) {
+        return checkTransition(transitions[currentState.ordinal()][nextState.ordinal()]);
+    }
+
+    /**
+     * Records a change to {@code nextState} that was rejected with {@code result}
+     */
+    void rejectTransitionTo(T nextState, int result) {
+        if (profiler != null) profiler.recordAttempt(false);
+        if (history != null) recordRejection(transitions[currentState.ordinal()][nextState.ordinal()], result);
+        if (logger != null && result != SAME_STATE) logger.recordRejection(nextState, result >= 0 ? result : CompiledGuards.NO_GUARD);
+        if (recorder != null) recorder.recordRequest(nextState, currentState);
+    }
+
+    /**
+     * Runs the edges and changes the state to {@code nextState}, without checking the guards
+     */
+    void applyTransitionTo(T nextState) {
+        // Recorded before the edges run, so that the inputs are the ones the guards read
+        if (recorder != null) recorder.recordRequest(nextState, nextState);
+        Transition<T> transition = transitions[currentState.ordinal()][nextState.ordinal()];
+        StateEdge<T>[] edges = stateEdges.getEdges(transition);
+        boolean hasAsyncEdges = profiler == null ? runEdges(edges, transition) : profiler.runEdges(edges, transition);
+        if (hasAsyncEdges) {
+            getAsyncEdges().submit(edges, transition);
         }
 
         currentState = nextState;
+        clearGuardCache();
+        if (profiler != null) profiler.recordAttempt(true);
+        if (history != null) history.record(transition.previousState(), nextState, TransitionOutcome.CHANGED, CompiledGuards.NO_GUARD);
+        notifyStateListeners(transition);
+    }
+
+    private void notifyStateListeners(Transition<T> transition) {
+        stateVersion++;
+        enteredVersions[transition.nextState().ordinal()] = stateVersion;
+        transitionedVersions[transition.previousState().ordinal() * transitions.length + transition.nextState().ordinal()] = stateVersion;
+        if (logger != null) logger.recordChange(transition.nextState());
+        for (int i = 0; i < stateListeners.size(); i++) {
+            stateListeners.get(i).performTransition(transition);
+        }
+    }
+
+    /**
+     * Queues a request to change the state to {@code nextState}. On the next {@link #periodic()}, only the request with 
+     * the highest priority is applied with {@link #tryChangeState(Enum)}, so its guards and edges run once. 
+     * If several requests have the same priority, the latest one is applied.
+     * <p>Requests must be made from the thread that calls {@code periodic()}, even if the state machine is wrapped in a
+     * {@link ConcurrentStateMachine}</p>
+     * @param nextState the requested next state
+     * @param priority the priority of the request, higher priorities win
+     */
+    public void requestState(T nextState, int priority) {
+        pendingRequestCount++;
+        if (pendingRequestCount > 1) {
+            coalescedRequestCount++;
+            if (priority < requestedPriority) return;
+        }
+        requestedState = nextState;
+        requestedPriority = priority;
+    }
+
+    /**
+     * Similar to {@link #requestState(Enum, int)}, with a priority of 0
+     */
+    public void requestState(T nextState) {
+        requestState(nextState, 0);
+    }
+
+    /**
+     * Applies the highest-priority request queued with {@link #requestState(Enum, int)} since the last cycle, if there is one
+     */
+    void applyRequestedState() {
+        T nextState = takeRequestedState();
+        if (nextState != null) tryChangeState(nextState);
+    }
+
+    /**
+     * Removes the highest-priority request queued with {@link #requestState(Enum, int)} since the last cycle
+     * @return the requested state, or null if there is no request
+     */
+    T takeRequestedState() {
+        if (pendingRequestCount == 0) return null;
+
+        T nextState = requestedState;
+        requestedState = null;
+        pendingRequestCount = 0;
+        return nextState;
+    }
+
+    /**
+     * Checks whether {@code state} was entered since the end of the second-to-last call to {@link #periodic()}.
+     * <p>
+     *     Called from a trigger that is polled once per cycle, after {@code periodic()}, this is true for exactly one poll
+     *     after {@code state} is entered, even if it is left again before the poll. The result only changes when the 
+     *     state changes or {@code periodic()} is called, so it may be checked any number of times per cycle.
+     * </p>
+     * <p>If the state machine is wrapped in a {@link ConcurrentStateMachine}, this must be called from the thread that
+     * calls {@code periodic()}, which sees the changes made on other threads once {@code periodic()} has claimed the state</p>
+     * @param state the state to check for
+     * @return whether {@code state} was entered in the current cycle or after the last poll of the previous cycle
+     */
+    public boolean hasEnteredState(T state) {
+        return enteredVersions[state.ordinal()] > previousCycleVersion;
+    }
+
+    /**
+     * Similar to {@link #hasEnteredState(Enum)}, except that the state must have changed from {@code previousState}
+     * directly to {@code nextState}
+     * @param previousState the state being left
+     * @param nextState the state being entered
+     * @return whether the transition happened in the current cycle or after the last poll of the previous cycle
+     */
+    public boolean hasTransitioned(T previousState, T nextState) {
+        return transitionedVersions[previousState.ordinal() * transitions.length + nextState.ordinal()] > previousCycleVersion;
+    }
+
+    /**
+     * {@return the state version at the end of the second-to-last cycle, which only changes in a cycle after the state changed}
+     * @see #hasEnteredState(Enum)
+     */
+    int getPreviousCycleVersion() {
+        return previousCycleVersion;
+    }
+
+    /**
+     * Writes the changes of this cycle to the log, and ends the cycle used by {@link #hasEnteredState(Enum)} and 
+     * {@link #hasTransitioned(Enum, Enum)}
+     */
+    void endCycle() {
+        if (logger != null) logger.periodic();
+        if (recorder != null) recorder.periodic();
+        previousCycleVersion = cycleVersion;
+        cycleVersion = stateVersion;
+    }
+
+    /**
+     * Adds a listener that runs after every change of state, including changes made by 
+     * {@link #setStateWithoutGuardsOrEdges(Enum)}. Unlike edges, listeners run after the current state is updated.
+     * @param listener the function to execute after the state changes
+     * @return reference for method chaining
+     */
+    public StateMachine<T> addStateListener(StateEdge<T> listener) {
+        checkNotWrapped();
+        stateListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * {@return the {@link ConcurrentStateMachine} this state machine is wrapped in, or null if it is not wrapped}
+     */
+    ConcurrentStateMachine<T> getConcurrentOwner() {
+        return concurrentOwner;
+    }
+
+    /**
+     * {@return the position of this state machine in the fixed global order used by {@link StateTransaction}}
+     */
+    long getTransactionOrder() {
+        return transactionOrder;
+    }
+
+    private void recordRejection(Transition<T> transition, int result) {
+        switch (result) {
+            case SAME_STATE -> history.record(currentState, currentState, TransitionOutcome.SAME_STATE, CompiledGuards.NO_GUARD);
+            case STATICALLY_DENIED -> history.record(transition.previousState(), transition.nextState(), TransitionOutcome.STATICALLY_DENIED, CompiledGuards.NO_GUARD);
+            default -> history.record(transition.previousState(), transition.nextState(), TransitionOutcome.GUARD_REJECTED, result);
+        }
+    }
+
+    private boolean runEdges(StateEdge<T>[] edges, Transition<T> transition) {
+        boolean hasAsyncEdges = false;
+        for(StateEdge<T> edge : edges) {
+            if (edge instanceof AsyncStateEdge) {
+                hasAsyncEdges = true;
+            } else {
+                edge.performTransition(transition);
+            }
+        }
+        return hasAsyncEdges;
+    }
+
+    /**
+     * Updates the per-cycle features of the state machine: publishes profiling data, runs timeouts, then applies the 
+     * highest-priority request queued with {@link #requestState(Enum, int)}. Finally, it writes the log enabled with
+     * {@link #enableLogging(String)} and ends the cycle of {@link #hasEnteredState(Enum)} and {@link #hasTransitioned(Enum, Enum)}.
+     * <p>Should be called once per loop. {@link StatefulSubsystem} calls it automatically</p>
+     */
+    public void periodic() {
+        if (concurrentOwner != null) {
+            concurrentOwner.periodic();
+            return;
+        }
+        publishPeriodic();
+        tickTimeouts();
+        applyRequestedState();
+        endCycle();
+    }
+
+    /**
+     * Fires the timeouts of this state machine that expired
+     */
+    void tickTimeouts() {
+        if (timerWheel != null) timerWheel.tick();
+    }
+
+    /**
+     * Publishes the per-cycle statistics of the state machine, without running timeouts
+     */
+    void publishPeriodic() {
+        if (profiler != null) profiler.periodic();
+    }
+
+    /**
+     * Wraps this state machine in {@code owner}, which every later change of state goes through
+     * @throws IllegalStateException if this state machine is already wrapped
+     */
+    void setConcurrentOwner(ConcurrentStateMachine<T> owner) {
+        if (concurrentOwner != null) {
+            throw new IllegalStateException("This state machine is already wrapped in a ConcurrentStateMachine");
+        }
+        // Created now rather than on first use, so that threads changing the state never race to create it
+        getAsyncEdges();
+        concurrentOwner = owner;
+    }
+
+    /**
+     * @throws IllegalStateException if this state machine is wrapped, so it can no longer be configured
+     */
+    private void checkNotWrapped() {
+        if (concurrentOwner != null) {
+            throw new IllegalStateException("A state machine must be configured before it is wrapped in a ConcurrentStateMachine");
+        }
+    }
+
+    /**
+     * Tries to change from {@code state} to {@code target} when a timeout of this state machine expires
+     * @return false if the timeout could not run yet and should be retried on the next tick
+     */
+    boolean fireTimeout(T state, T target) {
+        if (concurrentOwner != null) return concurrentOwner.fireTimeout(state, target);
+        if (currentState == state) tryChangeState(target);
         return true;
     }
 
+    /**
+     * Adds a timeout: once the system has been in {@code state} for {@code seconds}, it tries to change to {@code target}. 
+     * The timeout is armed every time {@code state} is entered, and cancelled if {@code state} is exited first.
+     * <p>The change is made with {@link #tryChangeState(Enum)}, so it can still be blocked by guards. 
+     * Timeouts are run by the {@link StateTimerWheel#getShared() shared timer wheel}, which is ticked by {@link #periodic()}</p>
+     * @param state the state to time
+     * @param seconds how long to stay in {@code state}
+     * @param target the state to change to afterward
+     * @return reference for method chaining
+     * @throws IllegalArgumentException if {@code seconds} is negative, NaN or infinite
+     */
+    public StateMachine<T> after(T state, double seconds, T target) {
+        return after(state, seconds, target, StateTimerWheel.getShared());
+    }
+
+    /**
+     * Similar to {@link #after(Enum, double, Enum)}, except that the timeout is run by {@code timerWheel}
+     * @param timerWheel the wheel to run the timeout, which must be the same for every timeout of this state machine
+     * @throws IllegalArgumentException if {@code seconds} is negative, NaN or infinite, or if another timeout of this
+     * state machine uses a different wheel
+     */
+    public StateMachine<T> after(T state, double seconds, T target, StateTimerWheel timerWheel) {
+        checkNotWrapped();
+        if (!Double.isFinite(seconds) || seconds < 0) {
+            throw new IllegalArgumentException("seconds must be finite and not negative, was " + seconds);
+        }
+        if (this.timerWheel != null && this.timerWheel != timerWheel) {
+            throw new IllegalArgumentException("Every timeout of a state machine must use the same timer wheel");
+        }
+        this.timerWheel = timerWheel;
+
+        StateTimeout<T> timeout = new StateTimeout<>(this, state, target, (long) (seconds * 1e6));
+        addStateListener(transition -> {
+            if (transition.previousState() == state) timerWheel.cancel(timeout);
+            if (transition.nextState() == state) timerWheel.arm(timeout);
+        });
+        if (currentState == state) timerWheel.arm(timeout);
+        return this;
+    }
+
+    /**
+     * Enables timing of every guard and edge, and counting of transitions and rejections. 
+     * The statistics are published through AdvantageKit under {@code key}.
+     * <p>When profiling is not enabled, it costs nothing. It cannot be enabled together with adaptive guard ordering</p>
+     * @param key the key to publish the statistics under
+     * @param publishPeriodCycles how many calls to {@link #periodic()} between each publish
+     * @return reference for method chaining
+     * @throws IllegalStateException if adaptive guard ordering is enabled
+     * @see StateMachineProfiler
+     */
+    public StateMachine<T> enableProfiling(String key, int publishPeriodCycles) {
+        return enableProfiling(key, publishPeriodCycles, System::nanoTime);
+    }
+
+    /**
+     * Similar to {@link #enableProfiling(String, int)}, except that guards and edges are timed with {@code clockNanos}
+     * @param clockNanos supplies the current time, in nanoseconds
+     */
+    public StateMachine<T> enableProfiling(String key, int publishPeriodCycles, LongSupplier clockNanos) {
+        checkNotWrapped();
+        if (adaptiveGuardOrder != null) {
+            throw new IllegalStateException("Profiling cannot be enabled together with adaptive guard ordering");
+        }
+        profiler = new StateMachineProfiler<>(key, publishPeriodCycles, stateGuards, stateEdges, clockNanos);
+        return this;
+    }
+
+    /**
+     * Enables logging of the current state and of guard rejections through AdvantageKit under {@code key}. 
+     * States are written as ordinals only when they change, with the state names written once.
+     * <p>Values are written by {@link #periodic()}, so logging may be enabled before AdvantageKit is started</p>
+     * @param key the key to log under
+     * @return reference for method chaining
+     * @see StateMachineLogger
+     */
+    public StateMachine<T> enableLogging(String key) {
+        return enableLogging(key, StateMachineLogger.ADVANTAGE_KIT);
+    }
+
+    StateMachine<T> enableLogging(String key, StateMachineLogger.Output output) {
+        checkNotWrapped();
+        logger = new StateMachineLogger<>(key, currentState, stateGuards, output);
+        return this;
+    }
+
+    /**
+     * Enables recording of every change of state into {@code log}, for {@link StateMachineReplay}. Changes made by
+     * {@link #tryChangeState(Enum)}, requests, timeouts, transactions and {@link #setStateWithoutGuardsOrEdges(Enum)}
+     * are all recorded, including rejected ones, together with the current value of each guard input.
+     * <p>Every entry is kept in memory until the log is saved. To record a whole match, prefer
+     * {@link #enableRecording(String, DoubleSupplier...)}</p>
+     * @param log an empty log that starts at the current state, with one input per element of {@code guardInputs}
+     * @param clockMicros supplies the timestamp of each entry, in microseconds
+     * @param guardInputs the values the guards read, in the order they are stored
+     * @return reference for method chaining
+     * @throws IllegalArgumentException if {@code log} is not empty, does not start at the current state, or stores a
+     * different number of inputs
+     */
+    public StateMachine<T> enableRecording(ReplayLog<T> log, LongSupplier clockMicros, DoubleSupplier... guardInputs) {
+        checkNotWrapped();
+        recorder = new StateMachineRecorder<>(log, currentState, clockMicros, guardInputs);
+        return this;
+    }
+
+    /**
+     * Similar to {@link #enableRecording(ReplayLog, LongSupplier, DoubleSupplier...)}, except that the entries are
+     * written through AdvantageKit under {@code key} by {@link #periodic()}, timestamped with the AdvantageKit timestamp
+     * of the cycle, and not kept in memory. The recording is loaded back with {@link AdvantageKitReplayReader}
+     * @param key the key to log under
+     * @param guardInputs the values the guards read, in the order they are stored
+     * @return reference for method chaining
+     * @see StateMachineRecorder
+     */
+    public StateMachine<T> enableRecording(String key, DoubleSupplier... guardInputs) {
+        return enableRecording(key, Logger::getTimestamp, StateMachineRecorder.ADVANTAGE_KIT, guardInputs);
+    }
+
+    StateMachine<T> enableRecording(String key, LongSupplier clockMicros, StateMachineRecorder.Output output, DoubleSupplier... guardInputs) {
+        checkNotWrapped();
+        recorder = new StateMachineRecorder<>(key, currentState, clockMicros, guardInputs, output);
+        return this;
+    }
+
+    /**
+     * {@return the log passed to {@link #enableRecording(ReplayLog, LongSupplier, DoubleSupplier...)}, or null if the
+     * state machine is not recording into a log}
+     */
+    public ReplayLog<T> getRecording() {
+        return recorder == null ? null : recorder.getLog();
+    }
+
+    /**
+     * Enables reordering of each transition's guards by their measured cost and rejection rate,
+     * so that cheap guards that often reject run first.
+     * <p>Guards created with {@link StateGuardCondition#pinned(StateGuardCondition)} are never reordered.
+     * Profiling times guards in their declared order, so it cannot be enabled together with adaptive ordering</p>
+     * @param reorderPeriod how many evaluations of a transition between each reorder of its guards
+     * @return reference for method chaining
+     * @throws IllegalStateException if profiling is enabled
+     * @see AdaptiveGuardOrder
+     */
+    public StateMachine<T> enableAdaptiveGuardOrdering(int reorderPeriod) {
+        return enableAdaptiveGuardOrdering(reorderPeriod, System::nanoTime);
+    }
+
+    /**
+     * Similar to {@link #enableAdaptiveGuardOrdering(int)}, except that guards are timed with {@code clockNanos}
+     * @param clockNanos supplies the current time, in nanoseconds
+     */
+    public StateMachine<T> enableAdaptiveGuardOrdering(int reorderPeriod, LongSupplier clockNanos) {
+        checkNotWrapped();
+        if (profiler != null) {
+            throw new IllegalStateException("Adaptive guard ordering cannot be enabled together with profiling");
+        }
+        adaptiveGuardOrder = new AdaptiveGuardOrder<>(currentState.getDeclaringClass(), stateGuards, reorderPeriod, clockNanos);
+        return this;
+    }
+
+    /**
+     * Enables recording of the last {@code capacity} requests to change state, timestamped with the FPGA clock.
+     * <p>The buffer is allocated here, so recording never allocates. When history is not enabled, it costs nothing. 
+     * When the WPILib HAL is not available, such as in unit tests, the timestamps come from {@link System#nanoTime()}</p>
+     * @param capacity how many requests to keep
+     * @return reference for method chaining
+     * @see TransitionHistory
+     */
+    public StateMachine<T> enableHistory(int capacity) {
+        return enableHistory(capacity, FpgaClock.MICROS);
+    }
+
+    /**
+     * Similar to {@link #enableHistory(int)}, except that requests are timestamped with {@code clockMicros}
+     * @param clockMicros supplies the current time, in microseconds
+     */
+    public StateMachine<T> enableHistory(int capacity, LongSupplier clockMicros) {
+        checkNotWrapped();
+        history = new TransitionHistory<>(capacity, currentState, stateGuards, clockMicros);
+        return this;
+    }
+
+    /**
+     * Sets the executor used to run asynchronous edges, created with {@link StateEdge#async(StateEdge)}.
+     * <p>Defaults to a shared pool of daemon threads. Edges already queued still run on the previous executor</p>
+     * @param executor the executor to run asynchronous edges on
+     * @return reference for method chaining
+     */
+    public StateMachine<T> setAsyncEdgeExecutor(Executor executor) {
+        checkNotWrapped();
+        getAsyncEdges().setExecutor(executor);
+        return this;
+    }
+
+    /**
+     * Gets a future that completes once the asynchronous edges of the latest transition, and every transition before it,
+     * have finished. It completes exceptionally if an asynchronous edge of the latest transition threw an exception.
+     * @return the future of the latest transition's asynchronous edges
+     * @see StateEdge#async(StateEdge)
+     */
+    public CompletableFuture<Void> getTransitionFuture() {
+        return getAsyncEdges().getTail();
+    }
+
+    /**
+     * {@return whether every asynchronous edge of every transition so far has finished}
+     * @see StateEdge#async(StateEdge)
+     */
+    public boolean isTransitionSettled() {
+        return asyncEdges == null || asyncEdges.getTail().isDone();
+    }
+
+    private AsyncEdgeQueue<T> getAsyncEdges() {
+        if (asyncEdges == null) asyncEdges = new AsyncEdgeQueue<>(AsyncEdgeQueue.DEFAULT_EXECUTOR);
+        return asyncEdges;
+    }
+
+    /**
+     * Finds every state that the system can currently change to, checking each outgoing transition in one pass.
+     * <p>A state is included if {@link #canChangeState(Enum)} would return true for it. Guards are evaluated once per 
+     * outgoing transition, except guards created with {@link StateGuardCondition#targetIndependent(StateGuardCondition)}, 
+     * which are evaluated at most once per call. While profiling or adaptive ordering is enabled, every guard is 
+     * evaluated once per outgoing transition. If the state machine is wrapped in a {@link ConcurrentStateMachine}, each
+     * state is checked like {@link ConcurrentStateMachine#canChangeState(Enum)}, without memoization or statistics</p>
+     * @return a new set of the states the system can change to
+     */
+    public EnumSet<T> allowedNextStates() {
+        return allowedNextStates(EnumSet.noneOf(currentState.getDeclaringClass()));
+    }
+
+    /**
+     * Similar to {@link #allowedNextStates()}, except that the states are written into {@code result} 
+     * instead of a new set, so that it can be reused every loop
+     * @param result the set to clear and fill
+     * @return {@code result}, for method chaining
+     */
+    public EnumSet<T> allowedNextStates(EnumSet<T> result) {
+        result.clear();
+        if (concurrentOwner != null) {
+            for (Transition<T> transition : transitions[concurrentOwner.getCurrentState().ordinal()]) {
+                if (checkWithoutSideEffects(transition) == ALLOWED) result.add(transition.nextState());
+            }
+            return result;
+        }
+
+        beginPass();
+        try {
+            for (Transition<T> transition : transitions[currentState.ordinal()]) {
+                if (canTransition(transition)) result.add(transition.nextState());
+            }
+        } finally {
+            passActive = false;
+        }
+        return result;
+    }
+
+    /**
+     * Similar to {@link #allowedNextStates()}, except that the states are returned as a bitmask, 
+     * where bit {@code n} is set if the system can change to the state with ordinal {@code n}.
+     * <p>Only usable with enums of at most 64 constants</p>
+     * @return the bitmask of the states the system can change to
+     * @throws IllegalStateException if the enum has more than 64 constants
+     */
+    public long allowedNextStatesMask() {
+        Transition<T>[] outgoing = transitions[getCurrentState().ordinal()];
+        if (outgoing.length > Long.SIZE) {
+            throw new IllegalStateException("Cannot create a bitmask for an enum with " + outgoing.length + " constants");
+        }
+
+        long mask = 0;
+        if (concurrentOwner != null) {
+            for (int i = 0; i < outgoing.length; i++) {
+                if (checkWithoutSideEffects(outgoing[i]) == ALLOWED) mask |= 1L << i;
+            }
+            return mask;
+        }
+
+        beginPass();
+        try {
+            for (int i = 0; i < outgoing.length; i++) {
+                if (canTransition(outgoing[i])) mask |= 1L << i;
+            }
+        } finally {
+            passActive = false;
+        }
+        return mask;
+    }
+
+    /**
+     * Starts a pass over the outgoing transitions, during which target independent guards are evaluated at most once
+     */
+    private void beginPass() {
+        if (passStamps == null) return;
+        pass++;
+        passActive = true;
+    }
+
+    /**
+     * Enables memoization of guard results. Each transition's guards run at most once per cycle, 
+     * and later checks in the same cycle reuse the result.
+     * <p>
+     *     {@code cycleSupplier} identifies the current cycle, and must return the same value for the whole loop,
+     *     such as a loop counter or {@code Logger::getTimestamp}. 
+     *     The cache is also cleared whenever the state changes, and by {@link #invalidateGuardCache()}.
+     * </p>
+     * @param cycleSupplier supplies a value that changes once per cycle
+     * @return reference for method chaining
+     */
+    public StateMachine<T> enableGuardMemoization(LongSupplier cycleSupplier) {
+        checkNotWrapped();
+        guardCache = new GuardCache(cycleSupplier, transitions.length * transitions.length);
+        return this;
+    }
+
+    /**
+     * Clears all memoized guard results, so that the guards run again on the next check.
+     * <p>Does nothing if memoization is not enabled</p>
+     * @see #enableGuardMemoization(LongSupplier)
+     */
+    public void invalidateGuardCache() {
+        if (concurrentOwner != null) {
+            concurrentOwner.invalidateGuardCache();
+            return;
+        }
+        clearGuardCache();
+    }
+
+    /**
+     * Clears the memoized guard results, without going through the {@link ConcurrentStateMachine} of a wrapped state machine
+     */
+    void clearGuardCache() {
+        if (guardCache != null) guardCache.invalidate();
+    }
+
+    private boolean canTransition(Transition<T> transition) {
+        return checkTransition(transition) == ALLOWED;
+    }
+
+    /**
+     * {@return {@link #ALLOWED}, {@link #SAME_STATE}, {@link #STATICALLY_DENIED}, or the id of the guard that rejected the transition}
+     */
+    private int checkTransition(Transition<T> transition) {
+        if(!transition.isValid()) return SAME_STATE;
+        if(!stateGuards.isStaticallyAllowed(transition.previousState(), transition.nextState())) return STATICALLY_DENIED;
+        if (guardCache == null) return evaluateGuards(transition);
+
+        int index = transition.previousState().ordinal() * transitions.length + transition.nextState().ordinal();
+        int cached = guardCache.get(index);
+        if (cached != GuardCache.MISS) return cached;
+
+        int result = evaluateGuards(transition);
+        guardCache.put(index, result);
+        return result;
+    }
+
+    /**
+     * Checks {@code transition} without memoization, profiling, adaptive ordering or history, so that it never writes
+     * to the state machine and may run while another thread is changing the state
+     * @return {@link #ALLOWED}, {@link #SAME_STATE}, {@link #STATICALLY_DENIED}, or the id of the guard that rejected the transition
+     */
+    int checkWithoutSideEffects(Transition<T> transition) {
+        if(!transition.isValid()) return SAME_STATE;
+        if(!stateGuards.isStaticallyAllowed(transition.previousState(), transition.nextState())) return STATICALLY_DENIED;
+
+        StateGuardCondition<T>[] guards = stateGuards.getGuards(transition);
+        int[] ids = stateGuards.getGuardIds(transition.previousState(), transition.nextState());
+        for (int i = 0; i < guards.length; i++) {
+            if (!guards[i].canChange(transition)) return ids[i];
+        }
+        return ALLOWED;
+    }
+
+    /**
+     * Similar to {@link #checkWithoutSideEffects(Transition)}, for the transition from {@code state} to {@code nextState}
+     */
+    int checkWithoutSideEffects(T state, T nextState) {
+        return checkWithoutSideEffects(transitions[state.ordinal()][nextState.ordinal()]);
+    }
+
+    private int evaluateGuards(Transition<T> transition) {
+        if (profiler != null) return profiler.evaluateGuards(transition);
+        if (adaptiveGuardOrder != null) return adaptiveGuardOrder.evaluateGuards(transition);
+
+        StateGuardCondition<T>[] guards = stateGuards.getGuards(transition);
+        int[] ids = stateGuards.getGuardIds(transition.previousState(), transition.nextState());
+        for (int i = 0; i < guards.length; i++) {
+            int id = ids[i];
+            boolean allowed;
+            if (passActive && stateGuards.isTargetIndependent(id)) {
+                if (passStamps[id] != pass) {
+                    passStamps[id] = pass;
+                    passResults[id] = guards[i].canChange(transition);
+                }
+                allowed = passResults[id];
+            } else {
+                allowed = guards[i].canChange(transition);
+            }
+            if (!allowed) return id;
+        }
+        return ALLOWED;
+    }
+
     /**
      * Changes the state of the system to {@code nextState} without checking the {@link Guards} or running the {@link Edges}.
      * <p>Not recommended for general use</p>
      * @param nextState the next state of the system
      */
     public void setStateWithoutGuardsOrEdges(T nextState) {
+        if (concurrentOwner != null) {
+            concurrentOwner.setStateWithoutGuardsOrEdges(nextState);
+            return;
+        }
+        forceStateTo(nextState);
+    }
+
+    /**
+     * Changes the state to {@code nextState} without checking the guards or running the edges
+     */
+    void forceStateTo(T nextState) {
+        if (recorder != null) recorder.recordForced(nextState);
+        if (history != null) history.record(currentState, nextState, TransitionOutcome.FORCED, CompiledGuards.NO_GUARD);
+        Transition<T> transition = transitions[currentState.ordinal()][nextState.ordinal()];
         currentState = nextState;
+        clearGuardCache();
+        if (transition.isValid()) notifyStateListeners(transition);
     }
 }
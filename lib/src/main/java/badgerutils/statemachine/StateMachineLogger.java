@@ -0,0 +1,110 @@
+package badgerutils.statemachine;
+
+import org.littletonrobotics.junction.Logger;
+
+/**
+ * Logs the state of a {@link StateMachine} through the AdvantageKit {@link Logger}, only when something changes.
+ * <p>
+ *     Enabled with {@link StateMachine#enableLogging(String)}. Everything is written under {@code key}:
+ *     <ul>
+ *         <li>{@code StateNames}, {@code GuardNames}: the name of each state and guard, written once</li>
+ *         <li>{@code State}: the ordinal of the current state, written after logging is enabled and on every change</li>
+ *         <li>{@code RejectedState}, {@code RejectingGuard}: the requested state and the id of the guard that rejected it,
+ *         or {@link CompiledGuards#NO_GUARD} for a static 'deny' guard. Repeats of the same rejection are only written once per state</li>
+ *     </ul>
+ *     The log size therefore grows with the number of transitions and distinct rejections, not with the loop rate.
+ * <p>
+ *     Changes and rejections are held in primitive fields and written by {@link StateMachine#periodic()}, so logging may
+ *     be enabled before {@code Logger.start()}. AdvantageKit keeps one value per key per cycle, so only the last change
+ *     and the last rejection of each cycle are written.
+ * @param <T> enum type
+ */
+final class StateMachineLogger<T extends Enum<T>> {
+    /**
+     * Where the logger writes its values, {@link #ADVANTAGE_KIT} outside of tests
+     */
+    interface Output {
+        void record(String key, int value);
+
+        void record(String key, String[] value);
+    }
+
+    static final Output ADVANTAGE_KIT = new Output() {
+        @Override
+        public void record(String key, int value) {
+            Logger.recordOutput(key, value);
+        }
+
+        @Override
+        public void record(String key, String[] value) {
+            Logger.recordOutput(key, value);
+        }
+    };
+
+    private static final int NO_STATE = -1;
+
+    private final Output output;
+    private final String key;
+    private final String stateKey;
+    private final String rejectedStateKey;
+    private final String rejectingGuardKey;
+    private final T[] states;
+    private final CompiledGuards<T> stateGuards;
+
+    private boolean namesWritten;
+    private int pendingState;
+    private int pendingRejectedState = NO_STATE;
+    private int pendingRejectingGuard = CompiledGuards.NO_GUARD;
+    private int lastRejectedState = NO_STATE;
+    private int lastRejectingGuard = CompiledGuards.NO_GUARD;
+
+    StateMachineLogger(String key, T initialState, CompiledGuards<T> stateGuards, Output output) {
+        this.output = output;
+        this.key = key;
+        this.stateKey = key + "/State";
+        this.rejectedStateKey = key + "/RejectedState";
+        this.rejectingGuardKey = key + "/RejectingGuard";
+        this.states = initialState.getDeclaringClass().getEnumConstants();
+        this.stateGuards = stateGuards;
+        this.pendingState = initialState.ordinal();
+    }
+
+    void recordChange(T nextState) {
+        pendingState = nextState.ordinal();
+        lastRejectedState = NO_STATE;
+        lastRejectingGuard = CompiledGuards.NO_GUARD;
+    }
+
+    void recordRejection(T nextState, int rejectingGuard) {
+        if (nextState.ordinal() == lastRejectedState && rejectingGuard == lastRejectingGuard) return;
+        lastRejectedState = nextState.ordinal();
+        lastRejectingGuard = rejectingGuard;
+        pendingRejectedState = lastRejectedState;
+        pendingRejectingGuard = lastRejectingGuard;
+    }
+
+    /**
+     * Writes the names on the first call, then any change or rejection recorded since the last call
+     */
+    void periodic() {
+        if (!namesWritten) {
+            namesWritten = true;
+            String[] stateNames = new String[states.length];
+            for (int i = 0; i < stateNames.length; i++) stateNames[i] = states[i].name();
+            String[] guardNames = new String[stateGuards.getGuardCount()];
+            for (int i = 0; i < guardNames.length; i++) guardNames[i] = stateGuards.getGuardName(i);
+
+            output.record(key + "/StateNames", stateNames);
+            output.record(key + "/GuardNames", guardNames);
+        }
+        if (pendingState != NO_STATE) {
+            output.record(stateKey, pendingState);
+            pendingState = NO_STATE;
+        }
+        if (pendingRejectedState != NO_STATE) {
+            output.record(rejectedStateKey, pendingRejectedState);
+            output.record(rejectingGuardKey, pendingRejectingGuard);
+            pendingRejectedState = NO_STATE;
+        }
+    }
+}
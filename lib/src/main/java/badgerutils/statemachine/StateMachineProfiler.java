@@ -0,0 +1,234 @@
+package badgerutils.statemachine;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Records how long each guard and edge of a {@link StateMachine} takes, and how often transitions are rejected.
+ * <p>
+ *     Enabled with {@link StateMachine#enableProfiling(String, int)}. All statistics are kept in primitive arrays
+ *     allocated when profiling is enabled, indexed by the ids from {@link CompiledGuards#getGuardIds(Enum, Enum)} and
+ *     {@link CompiledEdges#getEdgeIds(Enum, Enum)}, so recording never allocates. Asynchronous edges are not timed.
+ *     Guards and edges are timed with {@link System#nanoTime()}, or with the clock given to
+ *     {@link StateMachine#enableProfiling(String, int, LongSupplier)}.
+ * <p>
+ *     The statistics are totals since profiling was enabled, and are published through the AdvantageKit {@link Logger}
+ *     under {@code key} once every {@code publishPeriodCycles} calls to {@link #periodic()}:
+ *     <ul>
+ *         <li>{@code GuardNames}, {@code EdgeNames}: the name of each guard and edge, published once. See
+ *         {@link CompiledGuards#getGuardName(int)} and {@link CompiledEdges#getEdgeName(int)}</li>
+ *         <li>{@code GuardNanos}, {@code GuardMaxNanos}, {@code GuardCalls}, {@code GuardRejections}</li>
+ *         <li>{@code EdgeNanos}, {@code EdgeMaxNanos}, {@code EdgeCalls}</li>
+ *         <li>{@code TransitionCount}, {@code RejectionCount}: the results of {@link StateMachine#tryChangeState(Enum)}</li>
+ *     </ul>
+ * @param <T> enum type
+ */
+public final class StateMachineProfiler<T extends Enum<T>> {
+    private final String key;
+    private final int publishPeriodCycles;
+    private final CompiledGuards<T> stateGuards;
+    private final CompiledEdges<T> stateEdges;
+    private final LongSupplier clockNanos;
+
+    private final long[] guardNanos, guardMaxNanos, guardCalls, guardRejections;
+    private final long[] edgeNanos, edgeMaxNanos, edgeCalls;
+    private long transitionCount, rejectionCount;
+
+    private int cyclesSincePublish;
+    private boolean namesPublished;
+
+    StateMachineProfiler(String key, int publishPeriodCycles, CompiledGuards<T> stateGuards, CompiledEdges<T> stateEdges,
+                         LongSupplier clockNanos) {
+        if (publishPeriodCycles < 1) {
+            throw new IllegalArgumentException("publishPeriodCycles must be at least 1, was " + publishPeriodCycles);
+        }
+        this.key = key;
+        this.publishPeriodCycles = publishPeriodCycles;
+        this.stateGuards = stateGuards;
+        this.stateEdges = stateEdges;
+        this.clockNanos = clockNanos;
+
+        guardNanos = new long[stateGuards.getGuardCount()];
+        guardMaxNanos = new long[stateGuards.getGuardCount()];
+        guardCalls = new long[stateGuards.getGuardCount()];
+        guardRejections = new long[stateGuards.getGuardCount()];
+        edgeNanos = new long[stateEdges.getEdgeCount()];
+        edgeMaxNanos = new long[stateEdges.getEdgeCount()];
+        edgeCalls = new long[stateEdges.getEdgeCount()];
+    }
+
+    /**
+     * {@return {@link CompiledGuards#NO_GUARD} if every guard allowed the transition, or the id of the guard that rejected it}
+     */
+    int evaluateGuards(Transition<T> transition) {
+        StateGuardCondition<T>[] guards = stateGuards.getGuards(transition);
+        int[] ids = stateGuards.getGuardIds(transition.previousState(), transition.nextState());
+
+        for (int i = 0; i < guards.length; i++) {
+            long start = clockNanos.getAsLong();
+            boolean allowed = guards[i].canChange(transition);
+            long elapsed = clockNanos.getAsLong() - start;
+
+            int id = ids[i];
+            guardNanos[id] += elapsed;
+            guardMaxNanos[id] = Math.max(guardMaxNanos[id], elapsed);
+            guardCalls[id]++;
+            if (!allowed) {
+                guardRejections[id]++;
+                return id;
+            }
+        }
+        return CompiledGuards.NO_GUARD;
+    }
+
+    boolean runEdges(StateEdge<T>[] edges, Transition<T> transition) {
+        int[] ids = stateEdges.getEdgeIds(transition.previousState(), transition.nextState());
+        boolean hasAsyncEdges = false;
+
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i] instanceof AsyncStateEdge) {
+                hasAsyncEdges = true;
+                continue;
+            }
+            long start = clockNanos.getAsLong();
+            edges[i].performTransition(transition);
+            long elapsed = clockNanos.getAsLong() - start;
+
+            int id = ids[i];
+            edgeNanos[id] += elapsed;
+            edgeMaxNanos[id] = Math.max(edgeMaxNanos[id], elapsed);
+            edgeCalls[id]++;
+        }
+        return hasAsyncEdges;
+    }
+
+    void recordAttempt(boolean changed) {
+        if (changed) {
+            transitionCount++;
+        } else {
+            rejectionCount++;
+        }
+    }
+
+    /**
+     * Publishes the statistics once every {@code publishPeriodCycles} calls. Called by {@link StateMachine#periodic()}
+     */
+    public void periodic() {
+        if (++cyclesSincePublish < publishPeriodCycles) return;
+        cyclesSincePublish = 0;
+        publish();
+    }
+
+    /**
+     * Publishes the statistics to the {@link Logger} immediately
+     */
+    public void publish() {
+        if (!namesPublished) {
+            String[] guardNames = new String[guardNanos.length];
+            for (int i = 0; i < guardNames.length; i++) guardNames[i] = stateGuards.getGuardName(i);
+            String[] edgeNames = new String[edgeNanos.length];
+            for (int i = 0; i < edgeNames.length; i++) edgeNames[i] = stateEdges.getEdgeName(i);
+
+            Logger.recordOutput(key + "/GuardNames", guardNames);
+            Logger.recordOutput(key + "/EdgeNames", edgeNames);
+            namesPublished = true;
+        }
+
+        Logger.recordOutput(key + "/GuardNanos", guardNanos);
+        Logger.recordOutput(key + "/GuardMaxNanos", guardMaxNanos);
+        Logger.recordOutput(key + "/GuardCalls", guardCalls);
+        Logger.recordOutput(key + "/GuardRejections", guardRejections);
+        Logger.recordOutput(key + "/EdgeNanos", edgeNanos);
+        Logger.recordOutput(key + "/EdgeMaxNanos", edgeMaxNanos);
+        Logger.recordOutput(key + "/EdgeCalls", edgeCalls);
+        Logger.recordOutput(key + "/TransitionCount", transitionCount);
+        Logger.recordOutput(key + "/RejectionCount", rejectionCount);
+    }
+
+    /**
+     * {@return the index of {@code guard} in the statistics, or {@link CompiledGuards#NO_GUARD} if it is not profiled}
+     * @param guard the guard, as it was added to the {@link Guards}
+     */
+    public int getGuardId(StateGuardCondition<T> guard) {
+        return stateGuards.getGuardId(guard);
+    }
+
+    /**
+     * {@return the index of {@code edge} in the statistics, or {@link CompiledEdges#NO_EDGE} if it is not profiled}
+     * @param edge the edge, as it was added to the {@link Edges} or {@link StateHierarchy}
+     */
+    public int getEdgeId(StateEdge<T> edge) {
+        return stateEdges.getEdgeId(edge);
+    }
+
+    /**
+     * {@return the total time spent in the guard with the index {@code id}, in nanoseconds}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public long getGuardNanos(int id) {
+        return guardNanos[id];
+    }
+
+    /**
+     * {@return the longest time spent in one evaluation of the guard with the index {@code id}, in nanoseconds}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public long getGuardMaxNanos(int id) {
+        return guardMaxNanos[id];
+    }
+
+    /**
+     * {@return the number of times the guard with the index {@code id} was evaluated}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public long getGuardCalls(int id) {
+        return guardCalls[id];
+    }
+
+    /**
+     * {@return the number of times the guard with the index {@code id} rejected a transition}
+     * @param id the index of the guard, as returned by {@link CompiledGuards#getGuardIds(Enum, Enum)}
+     */
+    public long getGuardRejections(int id) {
+        return guardRejections[id];
+    }
+
+    /**
+     * {@return the total time spent in the edge with the index {@code id}, in nanoseconds}
+     * @param id the index of the edge, as returned by {@link CompiledEdges#getEdgeIds(Enum, Enum)}
+     */
+    public long getEdgeNanos(int id) {
+        return edgeNanos[id];
+    }
+
+    /**
+     * {@return the longest time spent in one run of the edge with the index {@code id}, in nanoseconds}
+     * @param id the index of the edge, as returned by {@link CompiledEdges#getEdgeIds(Enum, Enum)}
+     */
+    public long getEdgeMaxNanos(int id) {
+        return edgeMaxNanos[id];
+    }
+
+    /**
+     * {@return the number of times the edge with the index {@code id} was run}
+     * @param id the index of the edge, as returned by {@link CompiledEdges#getEdgeIds(Enum, Enum)}
+     */
+    public long getEdgeCalls(int id) {
+        return edgeCalls[id];
+    }
+
+    /**
+     * {@return the number of times {@link StateMachine#tryChangeState(Enum)} changed the state}
+     */
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * {@return the number of times {@link StateMachine#tryChangeState(Enum)} did not change the state}
+     */
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+}
@@ -0,0 +1,181 @@
+package badgerutils.statemachine;
+
+import org.littletonrobotics.junction.Logger;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Records every change of state of a {@link StateMachine}, with the guard inputs, into a {@link ReplayLog}.
+ * <p>
+ *     Enabled with {@link StateMachine#enableRecording(ReplayLog, LongSupplier, DoubleSupplier...)}, which keeps every
+ *     entry in the given log, or with {@link StateMachine#enableRecording(String, DoubleSupplier...)}, which writes the
+ *     entries of each cycle through the AdvantageKit {@link Logger} from {@link StateMachine#periodic()} and then forgets
+ *     them. Everything is written under {@code key}:
+ *     <ul>
+ *         <li>{@code InitialState}, {@code InputCount}: the state when recording was enabled and the number of guard inputs, written once</li>
+ *         <li>{@code FirstIndex}: the index of the first entry written in this cycle, so that a reader can tell new
+ *         entries from values AdvantageKit repeats in cycles without entries</li>
+ *         <li>{@code Timestamps}, {@code RequestedStates}, {@code ResultingStates}, {@code Forced}: one element per entry</li>
+ *         <li>{@code Inputs}: the guard inputs of every entry, one after another</li>
+ *     </ul>
+ *     Nothing but {@code InitialState} and {@code InputCount} is written in a cycle without changes.
+ * @param <T> enum type
+ */
+final class StateMachineRecorder<T extends Enum<T>> {
+    /**
+     * Where the recorder writes its entries, {@link #ADVANTAGE_KIT} outside of tests
+     */
+    interface Output {
+        void record(String key, int value);
+
+        void record(String key, long value);
+
+        void record(String key, long[] value);
+
+        void record(String key, int[] value);
+
+        void record(String key, boolean[] value);
+
+        void record(String key, double[] value);
+    }
+
+    static final Output ADVANTAGE_KIT = new Output() {
+        @Override
+        public void record(String key, int value) {
+            Logger.recordOutput(key, value);
+        }
+
+        @Override
+        public void record(String key, long value) {
+            Logger.recordOutput(key, value);
+        }
+
+        @Override
+        public void record(String key, long[] value) {
+            Logger.recordOutput(key, value);
+        }
+
+        @Override
+        public void record(String key, int[] value) {
+            Logger.recordOutput(key, value);
+        }
+
+        @Override
+        public void record(String key, boolean[] value) {
+            Logger.recordOutput(key, value);
+        }
+
+        @Override
+        public void record(String key, double[] value) {
+            Logger.recordOutput(key, value);
+        }
+    };
+
+    private final ReplayLog<T> log;
+    private final LongSupplier clockMicros;
+    private final DoubleSupplier[] guardInputs;
+    private final double[] values;
+    private final Output output;
+    private final String key;
+
+    private boolean headerWritten;
+    private long writtenCount;
+
+    /**
+     * Creates a recorder that keeps every entry in {@code log}
+     * @throws IllegalArgumentException if {@code log} does not start at {@code currentState}, is not empty, or stores
+     * a different number of guard inputs
+     */
+    StateMachineRecorder(ReplayLog<T> log, T currentState, LongSupplier clockMicros, DoubleSupplier[] guardInputs) {
+        this(log, currentState, clockMicros, guardInputs, null, null);
+    }
+
+    /**
+     * Creates a recorder that writes the entries of each cycle to {@code output} under {@code key}
+     */
+    StateMachineRecorder(String key, T currentState, LongSupplier clockMicros, DoubleSupplier[] guardInputs, Output output) {
+        this(new ReplayLog<>(currentState, guardInputs.length), currentState, clockMicros, guardInputs, key, output);
+    }
+
+    private StateMachineRecorder(ReplayLog<T> log, T currentState, LongSupplier clockMicros, DoubleSupplier[] guardInputs,
+                                 String key, Output output) {
+        if (log.getInitialState() != currentState || log.size() != 0) {
+            throw new IllegalArgumentException("A replay log must be empty and start at the current state, " + currentState);
+        }
+        if (guardInputs.length != log.getInputCount()) {
+            throw new IllegalArgumentException("Expected " + log.getInputCount() + " guard inputs, got " + guardInputs.length);
+        }
+        this.log = log;
+        this.clockMicros = clockMicros;
+        this.guardInputs = guardInputs.clone();
+        this.values = new double[guardInputs.length];
+        this.key = key;
+        this.output = output;
+    }
+
+    /**
+     * Records a request for {@code requestedState}, after which the state is {@code resultingState}
+     */
+    void recordRequest(T requestedState, T resultingState) {
+        log.record(clockMicros.getAsLong(), requestedState, resultingState, readInputs());
+    }
+
+    /**
+     * Records a change to {@code state} that did not check the guards
+     */
+    void recordForced(T state) {
+        log.recordForced(clockMicros.getAsLong(), state, readInputs());
+    }
+
+    /**
+     * Writes the entries recorded since the last call, if the recorder has an output
+     */
+    void periodic() {
+        if (output == null) return;
+        if (!headerWritten) {
+            headerWritten = true;
+            output.record(key + "/InitialState", log.getInitialState().ordinal());
+            output.record(key + "/InputCount", log.getInputCount());
+        }
+        int size = log.size();
+        if (size == 0) return;
+
+        long[] timestamps = new long[size];
+        int[] requestedStates = new int[size];
+        int[] resultingStates = new int[size];
+        boolean[] forced = new boolean[size];
+        double[] inputs = new double[size * values.length];
+        for (int index = 0; index < size; index++) {
+            timestamps[index] = log.getTimestamp(index);
+            requestedStates[index] = log.getRequestedState(index).ordinal();
+            resultingStates[index] = log.getResultingState(index).ordinal();
+            forced[index] = log.isForced(index);
+            for (int input = 0; input < values.length; input++) {
+                inputs[index * values.length + input] = log.getInput(index, input);
+            }
+        }
+        output.record(key + "/FirstIndex", writtenCount);
+        output.record(key + "/Timestamps", timestamps);
+        output.record(key + "/RequestedStates", requestedStates);
+        output.record(key + "/ResultingStates", resultingStates);
+        output.record(key + "/Forced", forced);
+        output.record(key + "/Inputs", inputs);
+        writtenCount += size;
+        log.clear();
+    }
+
+    /**
+     * {@return the log entries are kept in, or null if they are written through AdvantageKit instead}
+     */
+    ReplayLog<T> getLog() {
+        return output == null ? log : null;
+    }
+
+    private double[] readInputs() {
+        for (int input = 0; input < values.length; input++) {
+            values[input] = guardInputs[input].getAsDouble();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,63 @@
+package badgerutils.statemachine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Replays a {@link ReplayLog} against a {@link StateMachine} headlessly, as fast as possible, to reproduce its behavior offline.
+ * <p>
+ *     {@code machineFactory} builds the state machine from the same {@link Edges} and {@link Guards} used on the robot,
+ *     except that the guards read their inputs from the given {@link ReplayInputs}. For each recorded request,
+ *     the inputs are loaded, {@link StateMachine#tryChangeState(Enum)} is called, and the resulting state is compared
+ *     to the recorded one. Forced changes are replayed with {@link StateMachine#setStateWithoutGuardsOrEdges(Enum)}.
+ *     Timeouts and requests are recorded as the change they made, so the replayed machine should not enable timeouts
+ *     or call {@link StateMachine#periodic()}. After a divergence, the machine is set back to the recorded state, so that each divergence
+ *     is reported separately.
+ * <p>
+ *     The elapsed time is measured, so replays of long logs also serve as a macro-benchmark of the state machine.
+ * @param <T> enum type
+ */
+public class StateMachineReplay<T extends Enum<T>> {
+    private final Function<ReplayInputs, StateMachine<T>> machineFactory;
+
+    /**
+     * Creates a new {@link StateMachineReplay}
+     * @param machineFactory creates a state machine whose guards read from the given inputs
+     */
+    public StateMachineReplay(Function<ReplayInputs, StateMachine<T>> machineFactory) {
+        this.machineFactory = machineFactory;
+    }
+
+    /**
+     * Replays every request in {@code log} against a new state machine
+     * @param log the requests to replay
+     * @return the divergences and throughput of the replay
+     */
+    public ReplayResult<T> run(ReplayLog<T> log) {
+        ReplayInputs inputs = new ReplayInputs(log.getInputCount());
+        StateMachine<T> stateMachine = machineFactory.apply(inputs);
+        stateMachine.setStateWithoutGuardsOrEdges(log.getInitialState());
+
+        List<ReplayResult.Divergence<T>> divergences = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int index = 0; index < log.size(); index++) {
+            inputs.load(log, index);
+            if (log.isForced(index)) {
+                stateMachine.setStateWithoutGuardsOrEdges(log.getRequestedState(index));
+                continue;
+            }
+            stateMachine.tryChangeState(log.getRequestedState(index));
+
+            T expectedState = log.getResultingState(index);
+            if (stateMachine.getCurrentState() != expectedState) {
+                divergences.add(new ReplayResult.Divergence<>(index, log.getTimestamp(index), log.getRequestedState(index),
+                        expectedState, stateMachine.getCurrentState()));
+                stateMachine.setStateWithoutGuardsOrEdges(expectedState);
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        return new ReplayResult<>(log.size(), elapsedNanos, divergences);
+    }
+}
@@ -0,0 +1,36 @@
+package badgerutils.statemachine;
+
+/**
+ * A timeout of a {@link StateMachine}, which tries to change from {@code state} to {@code target} once the machine has been
+ * in {@code state} for {@code delayMicros}. Armed when {@code state} is entered and cancelled when it is exited.
+ * <p>Also the node of a {@link StateTimerWheel} slot, so that arming it never allocates</p>
+ *
+ * @param <T> enum type
+ */
+final class StateTimeout<T extends Enum<T>> {
+    static final int UNLINKED = -1;
+
+    final StateMachine<T> stateMachine;
+    final T state;
+    final T target;
+    final long delayMicros;
+
+    long expiryTick;
+    int list = UNLINKED;
+    StateTimeout<?> previous;
+    StateTimeout<?> next;
+
+    StateTimeout(StateMachine<T> stateMachine, T state, T target, long delayMicros) {
+        this.stateMachine = stateMachine;
+        this.state = state;
+        this.target = target;
+        this.delayMicros = delayMicros;
+    }
+
+    /**
+     * {@return false if the state machine is busy on another thread, and the timeout should be retried on the next tick}
+     */
+    boolean fire() {
+        return stateMachine.fireTimeout(state, target);
+    }
+}
@@ -0,0 +1,147 @@
+package badgerutils.statemachine;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A hashed timer wheel that runs the timeouts of every {@link StateMachine}, created with
+ * {@link StateMachine#after(Enum, double, Enum)}.
+ * <p>
+ *     Time is divided into ticks of {@code tickMicros}, and each timeout is linked into the slot of the tick it expires in.
+ *     {@link #tick()} only visits the slots of the ticks that passed since the last call, so its cost does not depend on
+ *     how many timeouts are armed. Timeouts are preallocated nodes of an intrusive linked list, so arming and cancelling
+ *     them never allocates.
+ * <p>
+ *     The {@link #getShared() shared wheel} is ticked by {@link StateMachine#periodic()}. Ticking again in the same cycle
+ *     only takes the uncontended lock of the wheel and compares the tick, so it may also be ticked once per loop from
+ *     {@code robotPeriodic()}.
+ * <p>
+ *     Timeouts may be armed and cancelled from any thread, as a {@link ConcurrentStateMachine} changes state. Expired
+ *     timeouts are fired outside of the wheel's lock by the thread calling {@link #tick()}, and a timeout whose
+ *     {@code ConcurrentStateMachine} is busy on another thread is retried on the next tick.
+ */
+public final class StateTimerWheel {
+    private static final StateTimerWheel SHARED = new StateTimerWheel(20_000, 256, FpgaClock.MICROS);
+
+    private final long tickMicros;
+    private final int mask;
+    private final LongSupplier clockMicros;
+
+    private final StateTimeout<?>[] heads;
+    private final int firing;
+    private long currentTick;
+    private boolean started;
+
+    /**
+     * Creates a new {@link StateTimerWheel}. Most machines should use {@link #getShared()} instead
+     * @param tickMicros the length of one tick, in microseconds; timeouts fire at most one tick late
+     * @param slotCount the number of slots, which must be a power of two
+     * @param clockMicros supplies the current time, in microseconds
+     */
+    public StateTimerWheel(long tickMicros, int slotCount, LongSupplier clockMicros) {
+        if (tickMicros < 1) {
+            throw new IllegalArgumentException("tickMicros must be at least 1, was " + tickMicros);
+        }
+        if (slotCount < 1 || Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("slotCount must be a power of two, was " + slotCount);
+        }
+        this.tickMicros = tickMicros;
+        this.mask = slotCount - 1;
+        this.clockMicros = clockMicros;
+        this.heads = new StateTimeout<?>[slotCount + 1];
+        this.firing = slotCount;
+    }
+
+    /**
+     * {@return the wheel shared by every state machine, with ticks of 20 ms timed by the FPGA clock, 
+     * or by {@link System#nanoTime()} when the WPILib HAL is not available}
+     */
+    public static StateTimerWheel getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Fires every timeout that expired since the last tick
+     */
+    public void tick() {
+        synchronized (this) {
+            advance();
+        }
+
+        while (true) {
+            StateTimeout<?> node;
+            synchronized (this) {
+                node = heads[firing];
+                if (node == null) return;
+                unlink(node);
+            }
+            if (!node.fire()) retry(node);
+        }
+    }
+
+    private void advance() {
+        long targetTick = now() / tickMicros;
+        if (targetTick <= currentTick) return;
+
+        long steps = Math.min(targetTick - currentTick, mask + 1);
+        for (long step = 1; step <= steps; step++) {
+            int slot = (int) ((currentTick + step) & mask);
+            StateTimeout<?> node = heads[slot];
+            while (node != null) {
+                StateTimeout<?> next = node.next;
+                if (node.expiryTick <= targetTick) {
+                    unlink(node);
+                    link(node, firing);
+                }
+                node = next;
+            }
+        }
+        currentTick = targetTick;
+    }
+
+    private synchronized void retry(StateTimeout<?> timeout) {
+        if (timeout.list != StateTimeout.UNLINKED) return;
+        timeout.expiryTick = currentTick + 1;
+        link(timeout, (int) (timeout.expiryTick & mask));
+    }
+
+    synchronized void arm(StateTimeout<?> timeout) {
+        if (timeout.list != StateTimeout.UNLINKED) unlink(timeout);
+        long now = now();
+        long expiryTick = Math.max((now + timeout.delayMicros + tickMicros - 1) / tickMicros, currentTick + 1);
+        timeout.expiryTick = expiryTick;
+        link(timeout, (int) (expiryTick & mask));
+    }
+
+    synchronized void cancel(StateTimeout<?> timeout) {
+        if (timeout.list != StateTimeout.UNLINKED) unlink(timeout);
+    }
+
+    private long now() {
+        long now = clockMicros.getAsLong();
+        if (!started) {
+            currentTick = now / tickMicros;
+            started = true;
+        }
+        return now;
+    }
+
+    private void link(StateTimeout<?> node, int list) {
+        node.list = list;
+        node.previous = null;
+        node.next = heads[list];
+        if (node.next != null) node.next.previous = node;
+        heads[list] = node;
+    }
+
+    private void unlink(StateTimeout<?> node) {
+        if (node.previous != null) {
+            node.previous.next = node.next;
+        } else {
+            heads[node.list] = node.next;
+        }
+        if (node.next != null) node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+        node.list = StateTimeout.UNLINKED;
+    }
+}
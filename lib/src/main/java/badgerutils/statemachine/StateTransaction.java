@@ -0,0 +1,155 @@
+package badgerutils.statemachine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes the states of several {@link StateMachine}s together, only if every one of them can change.
+ * <p>
+ *     {@link #commit()} first checks the guards of every participant against the current states. If any guard rejects,
+ *     nothing changes. Otherwise every participant's edges run and its state changes in the same call,
+ *     so a handoff like intake to indexer to shooter takes one cycle and never needs to be rolled back.
+ * <p>
+ *     Because every guard is checked before the first edge runs, <b>a participant's guards must not depend on the state of
+ *     another participant, or on anything its edges change</b>. They always see the states from before the commit, and are
+ *     not checked again once the edges of earlier participants have run. Checking them again there could reject a
+ *     participant after others had already changed, which is exactly what a transaction exists to prevent.
+ * <p>
+ *     Participants are always checked and committed in a fixed global order, the order their state machines were created,
+ *     regardless of the order they were added. Transactions never wait or retry, so conflicting transactions cannot
+ *     deadlock or livelock: whichever is committed first wins, and the other is checked against the new states.
+ * <p>
+ *     A participant wrapped in a {@link ConcurrentStateMachine} is claimed, in the same global order, before any guard
+ *     is checked, and released after every participant is applied. If another thread is changing its state, the commit
+ *     fails immediately, like {@link ConcurrentStateMachine#tryChangeState(Enum)}, and nothing changes.
+ * <p>
+ *     A participant that is already in its next state is left alone, without running its edges. The transaction can
+ *     still commit, since that participant already is where the transaction would move it.
+ * <p>
+ *     If an edge throws, the exception is thrown from {@link #commit()}. The participants applied before it keep their
+ *     new states, while the participant whose edge threw and those after it keep their old states. Edges should not throw.
+ * <p>
+ *     A transaction can be built once and committed every time the handoff is needed, without allocating.
+ */
+public class StateTransaction {
+    private record Participant<T extends Enum<T>>(StateMachine<T> stateMachine, T nextState) {
+        int check() {
+            return stateMachine.checkTransitionTo(nextState);
+        }
+
+        /**
+         * Similar to {@link #check()}, but never writes to a wrapped state machine, which is not claimed
+         */
+        int checkWithoutClaim() {
+            if (stateMachine.getConcurrentOwner() == null) return check();
+            return stateMachine.checkWithoutSideEffects(stateMachine.getCurrentState(), nextState);
+        }
+
+        /**
+         * {@return whether the state machine is already in {@code nextState}, so there is nothing to change}
+         */
+        boolean isInNextState() {
+            return stateMachine.getClaimedState() == nextState;
+        }
+
+        boolean claim() {
+            ConcurrentStateMachine<T> owner = stateMachine.getConcurrentOwner();
+            return owner == null || owner.claim();
+        }
+
+        void release() {
+            ConcurrentStateMachine<T> owner = stateMachine.getConcurrentOwner();
+            if (owner != null) owner.release();
+        }
+
+        void reject(int result) {
+            stateMachine.rejectTransitionTo(nextState, result);
+        }
+
+        void apply() {
+            stateMachine.applyTransitionTo(nextState);
+        }
+    }
+
+    private final List<Participant<?>> participants = new ArrayList<>();
+
+    /**
+     * Adds a state machine that should change to {@code nextState} when the transaction is committed
+     * @param stateMachine the state machine to change
+     * @param nextState the next state of {@code stateMachine}
+     * @return reference for method chaining
+     * @param <T> enum type
+     * @throws IllegalArgumentException if {@code stateMachine} is already part of this transaction
+     */
+    public <T extends Enum<T>> StateTransaction change(StateMachine<T> stateMachine, T nextState) {
+        int index = 0;
+        while (index < participants.size() && participants.get(index).stateMachine().getTransactionOrder() < stateMachine.getTransactionOrder()) {
+            index++;
+        }
+        if (index < participants.size() && participants.get(index).stateMachine() == stateMachine) {
+            throw new IllegalArgumentException("The state machine is already part of this transaction");
+        }
+        participants.add(index, new Participant<>(stateMachine, nextState));
+        return this;
+    }
+
+    /**
+     * Similar to {@link #change(StateMachine, Enum)}, using the state machine of {@code subsystem}
+     */
+    public <T extends Enum<T>> StateTransaction change(StatefulSubsystem<T> subsystem, T nextState) {
+        return change(subsystem.getStateMachine(), nextState);
+    }
+
+    /**
+     * Checks whether every participant can change state, without changing any of them.
+     * <p>Participants wrapped in a {@link ConcurrentStateMachine} are checked from a snapshot of their state, without
+     * claiming it, so the result may already be out of date when it is returned</p>
+     * @return whether {@link #commit()} would succeed
+     */
+    public boolean canCommit() {
+        for (int i = 0; i < participants.size(); i++) {
+            int result = participants.get(i).checkWithoutClaim();
+            if (result != StateMachine.ALLOWED && result != StateMachine.SAME_STATE) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Changes the state of every participant if all of their guards allow it, running their edges.
+     * If any participant cannot change, no state changes.
+     * <p>Every wrapped participant is claimed, every guard is checked against the states from before the commit, then
+     * every participant that is not already in its next state is applied in order</p>
+     * <p>Only the participant that was rejected records a rejection in its profiler and history</p>
+     * @return whether every participant is now in its next state, false if a guard rejected or a wrapped participant
+     * was being changed by another thread
+     */
+    public boolean commit() {
+        int claimed = 0;
+        try {
+            while (claimed < participants.size()) {
+                if (!participants.get(claimed).claim()) return false;
+                claimed++;
+            }
+
+            for (int i = 0; i < participants.size(); i++) {
+                Participant<?> participant = participants.get(i);
+                int result = participant.check();
+                if (result == StateMachine.SAME_STATE) continue;
+                if (result != StateMachine.ALLOWED) {
+                    participant.reject(result);
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < participants.size(); i++) {
+                Participant<?> participant = participants.get(i);
+                if (!participant.isInNextState()) participant.apply();
+            }
+            return true;
+        } finally {
+            for (int i = 0; i < claimed; i++) {
+                participants.get(i).release();
+            }
+        }
+    }
+}
@@ -1,15 +1,40 @@
 package badgerutils.statemachine;
 
+import badgerutils.triggers.GatedTrigger;
+import edu.wpi.first.wpilibj.event.EventLoop;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Wraps a {@link StateMachine} inside of a Subsystem for convenience
+ * <p>
+ * States can also be requested with {@link #requestState(Enum, int)}. Requests are queued instead of applied, and 
+ * {@link #periodic()} applies only the highest-priority request once per cycle.
+ * </p>
+ * <p>
+ * Requests, timeouts, profiling and logging all depend on {@code periodic()} running every cycle, so subclasses that
+ * override {@code periodic()} must call {@code super.periodic()}, usually first.
+ * </p>
+ * <p>
+ * The triggers from {@link #inState(Enum)}, {@link #enteredState(Enum)} and {@link #transitioned(Enum, Enum)} are not
+ * polled by the given {@link EventLoop} directly. Instead, each subsystem binds one gate to that loop, which compares the
+ * state version of the machine and only polls its triggers when the state changed, or in the cycle after, when
+ * {@code enteredState} and {@code transitioned} become false again. While the state does not change, any number of
+ * triggers costs two comparisons per cycle. Compositions with {@code and}, {@code or} and {@code debounce} are polled
+ * by the given loop every cycle, since their other conditions may change at any time.
+ * </p>
  *
  * @param <T> the enum type of the state machine
  */
 public class StatefulSubsystem<T extends Enum<T>> extends SubsystemBase {
 
     private final StateMachine<T> stateMachine;
+    private final Map<EventLoop, EventLoop> gatedLoops = new IdentityHashMap<>();
 
     /**
      * Constructs a new {@link StatefulSubsystem} using the provided {@link StateMachine}
@@ -33,10 +58,167 @@ public class StatefulSubsystem<T extends Enum<T>> extends SubsystemBase {
         return stateMachine.tryChangeState(toState);
     }
 
+    /**
+     * Wraps {@link StateMachine#requestState(Enum, int)}
+     */
+    public void requestState(T toState, int priority) {
+        stateMachine.requestState(toState, priority);
+    }
+
+    /**
+     * Wraps {@link StateMachine#requestState(Enum)}
+     */
+    public void requestState(T toState) {
+        stateMachine.requestState(toState);
+    }
+
+    /**
+     * Wraps {@link StateMachine#getPendingRequestCount()}
+     */
+    public int getPendingRequestCount() {
+        return stateMachine.getPendingRequestCount();
+    }
+
+    /**
+     * Wraps {@link StateMachine#getCoalescedRequestCount()}
+     */
+    public long getCoalescedRequestCount() {
+        return stateMachine.getCoalescedRequestCount();
+    }
+
+    /**
+     * Calls {@link StateMachine#periodic()}, which applies the highest-priority request queued with 
+     * {@link #requestState(Enum, int)} since the last cycle.
+     * <p>Overrides must call {@code super.periodic()}, or requests and timeouts are never applied</p>
+     */
+    @Override
+    public void periodic() {
+        stateMachine.periodic();
+    }
+
+    /**
+     * Wraps {@link StateMachine#allowedNextStates()}
+     */
+    public EnumSet<T> allowedNextStates() {
+        return stateMachine.allowedNextStates();
+    }
+
+    /**
+     * Wraps {@link StateMachine#allowedNextStates(EnumSet)}
+     */
+    public EnumSet<T> allowedNextStates(EnumSet<T> result) {
+        return stateMachine.allowedNextStates(result);
+    }
+
+    /**
+     * Wraps {@link StateMachine#allowedNextStatesMask()}
+     */
+    public long allowedNextStatesMask() {
+        return stateMachine.allowedNextStatesMask();
+    }
+
+    /**
+     * Wraps {@link StateMachine#isTransitionSettled()}
+     */
+    public boolean isTransitionSettled() {
+        return stateMachine.isTransitionSettled();
+    }
+
+    StateMachine<T> getStateMachine() {
+        return stateMachine;
+    }
+
     /**
      * Wraps {@link StateMachine#getCurrentState()}
      */
     public T getCurrentState() {
         return stateMachine.getCurrentState();
     }
+
+    /**
+     * Creates a trigger that is true while the subsystem is in {@code state}
+     * @param state the state to check for
+     * @param eventLoop the event loop that polls the trigger
+     * @return a trigger that is true while the current state is {@code state}
+     */
+    public Trigger inState(T state, EventLoop eventLoop) {
+        return new GatedTrigger(getGatedLoop(eventLoop), eventLoop, () -> getCurrentState() == state);
+    }
+
+    /**
+     * {@code eventLoop} defaults to the default button loop of the {@link CommandScheduler}
+     *
+     * @see #inState(Enum, EventLoop)
+     */
+    public Trigger inState(T state) {
+        return inState(state, CommandScheduler.getInstance().getDefaultButtonLoop());
+    }
+
+    /**
+     * Creates a trigger that is true for the one cycle after the subsystem enters {@code state}, 
+     * even if it leaves {@code state} again in the same cycle
+     * @param state the state to check for
+     * @param eventLoop the event loop that polls the trigger, once per cycle after {@link #periodic()}
+     * @return a trigger that is true for one cycle when {@code state} is entered
+     * @see StateMachine#hasEnteredState(Enum)
+     */
+    public Trigger enteredState(T state, EventLoop eventLoop) {
+        return new GatedTrigger(getGatedLoop(eventLoop), eventLoop, () -> stateMachine.hasEnteredState(state));
+    }
+
+    /**
+     * {@code eventLoop} defaults to the default button loop of the {@link CommandScheduler}
+     *
+     * @see #enteredState(Enum, EventLoop)
+     */
+    public Trigger enteredState(T state) {
+        return enteredState(state, CommandScheduler.getInstance().getDefaultButtonLoop());
+    }
+
+    /**
+     * Creates a trigger that is true for the one cycle after the subsystem changes from {@code previousState} 
+     * directly to {@code nextState}
+     * @param previousState the state being left
+     * @param nextState the state being entered
+     * @param eventLoop the event loop that polls the trigger, once per cycle after {@link #periodic()}
+     * @return a trigger that is true for one cycle when the transition happens
+     * @see StateMachine#hasTransitioned(Enum, Enum)
+     */
+    public Trigger transitioned(T previousState, T nextState, EventLoop eventLoop) {
+        return new GatedTrigger(getGatedLoop(eventLoop), eventLoop, () -> stateMachine.hasTransitioned(previousState, nextState));
+    }
+
+    /**
+     * {@code eventLoop} defaults to the default button loop of the {@link CommandScheduler}
+     *
+     * @see #transitioned(Enum, Enum, EventLoop)
+     */
+    public Trigger transitioned(T previousState, T nextState) {
+        return transitioned(previousState, nextState, CommandScheduler.getInstance().getDefaultButtonLoop());
+    }
+
+    /**
+     * {@return the loop that polls the state triggers of {@code eventLoop}, bound to it the first time it is needed}
+     */
+    private EventLoop getGatedLoop(EventLoop eventLoop) {
+        return gatedLoops.computeIfAbsent(eventLoop, loop -> {
+            EventLoop gatedLoop = new EventLoop();
+            loop.bind(new Runnable() {
+                // Starts out of date, so that the first poll sets the initial value of every trigger
+                private int stateVersion = -1;
+                private int previousCycleVersion = -1;
+
+                @Override
+                public void run() {
+                    int version = stateMachine.getStateVersion();
+                    int cycleVersion = stateMachine.getPreviousCycleVersion();
+                    if (version == stateVersion && cycleVersion == previousCycleVersion) return;
+                    stateVersion = version;
+                    previousCycleVersion = cycleVersion;
+                    gatedLoop.poll();
+                }
+            });
+            return gatedLoop;
+        });
+    }
 }
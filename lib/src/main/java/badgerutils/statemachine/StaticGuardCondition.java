@@ -0,0 +1,34 @@
+package badgerutils.statemachine;
+
+/**
+ * A guard whose result never changes.
+ * <p>
+ *     These are created with {@link StateGuardCondition#allow()} and {@link StateGuardCondition#deny()}, and are folded
+ *     into a matrix by {@link CompiledGuards} instead of being evaluated.
+ *
+ * @param <T> enum type
+ */
+final class StaticGuardCondition<T extends Enum<T>> implements StateGuardCondition<T> {
+    private static final StaticGuardCondition<?> ALLOW = new StaticGuardCondition<>(true);
+    private static final StaticGuardCondition<?> DENY = new StaticGuardCondition<>(false);
+
+    private final boolean allowed;
+
+    private StaticGuardCondition(boolean allowed) {
+        this.allowed = allowed;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Enum<T>> StaticGuardCondition<T> of(boolean allowed) {
+        return (StaticGuardCondition<T>) (allowed ? ALLOW : DENY);
+    }
+
+    boolean isAllowed() {
+        return allowed;
+    }
+
+    @Override
+    public boolean canChange(Transition<T> transition) {
+        return allowed;
+    }
+}
@@ -0,0 +1,24 @@
+package badgerutils.statemachine;
+
+/**
+ * Marks a guard whose result does not depend on the next state of the transition.
+ * <p>Created with {@link StateGuardCondition#targetIndependent(StateGuardCondition)}</p>
+ *
+ * @param <T> enum type
+ */
+final class TargetIndependentGuardCondition<T extends Enum<T>> implements StateGuardCondition<T> {
+    private final StateGuardCondition<T> guard;
+
+    TargetIndependentGuardCondition(StateGuardCondition<T> guard) {
+        this.guard = guard;
+    }
+
+    @Override
+    public boolean canChange(Transition<T> transition) {
+        return guard.canChange(transition);
+    }
+
+    StateGuardCondition<T> getGuard() {
+        return guard;
+    }
+}
@@ -17,4 +17,20 @@ public record Transition<T extends Enum<T>>(T previousState, T nextState) {
     public boolean isValid(){
         return !previousState.equals(nextState);
     }
+
+    /**
+     * Creates one transition for every pairing of the constants of {@code enumType}, 
+     * indexed by {@code [previousState.ordinal()][nextState.ordinal()]}
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Enum<T>> Transition<T>[][] createTable(Class<T> enumType) {
+        T[] states = enumType.getEnumConstants();
+        Transition<T>[][] transitions = (Transition<T>[][]) new Transition[states.length][states.length];
+        for (T previousState : states) {
+            for (T nextState : states) {
+                transitions[previousState.ordinal()][nextState.ordinal()] = new Transition<>(previousState, nextState);
+            }
+        }
+        return transitions;
+    }
 }
@@ -0,0 +1,170 @@
+package badgerutils.statemachine;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A fixed-size ring buffer of the most recent requests to change the state of a {@link StateMachine}.
+ * <p>
+ *     Enabled with {@link StateMachine#enableHistory(int)}. Each entry stores the previous and next state ordinals, the
+ *     {@link TransitionOutcome}, the id of the guard that rejected the request, if any, and a timestamp in microseconds.
+ *     Entries are stored in primitive arrays allocated up front, so recording never allocates. Once the buffer is full,
+ *     the oldest entries are overwritten.
+ * <p>
+ *     Entries are indexed from 0, the oldest entry still stored, to {@link #size()} - 1, the newest.
+ * @param <T> enum type
+ */
+public final class TransitionHistory<T extends Enum<T>> {
+    private static final TransitionOutcome[] OUTCOMES = TransitionOutcome.values();
+
+    private final T[] states;
+    private final CompiledGuards<T> stateGuards;
+    private final LongSupplier clockMicros;
+
+    private final long[] timestamps;
+    private final short[] previousStates;
+    private final short[] nextStates;
+    private final short[] rejectingGuards;
+    private final byte[] outcomes;
+
+    private int head;
+    private int size;
+    private T currentState;
+
+    TransitionHistory(int capacity, T initialState, CompiledGuards<T> stateGuards, LongSupplier clockMicros) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1, was " + capacity);
+        }
+        this.states = initialState.getDeclaringClass().getEnumConstants();
+        this.currentState = initialState;
+        this.stateGuards = stateGuards;
+        this.clockMicros = clockMicros;
+
+        timestamps = new long[capacity];
+        previousStates = new short[capacity];
+        nextStates = new short[capacity];
+        rejectingGuards = new short[capacity];
+        outcomes = new byte[capacity];
+    }
+
+    void record(T previousState, T nextState, TransitionOutcome outcome, int rejectingGuard) {
+        timestamps[head] = clockMicros.getAsLong();
+        previousStates[head] = (short) previousState.ordinal();
+        nextStates[head] = (short) nextState.ordinal();
+        rejectingGuards[head] = (short) rejectingGuard;
+        outcomes[head] = (byte) outcome.ordinal();
+
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) size++;
+        if (outcome == TransitionOutcome.CHANGED || outcome == TransitionOutcome.FORCED) currentState = nextState;
+    }
+
+    /**
+     * {@return the number of entries currently stored}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@return the maximum number of entries stored}
+     */
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * {@return the time of the entry at {@code index}, in microseconds}
+     */
+    public long getTimestamp(int index) {
+        return timestamps[slot(index)];
+    }
+
+    /**
+     * {@return the state of the system when the entry at {@code index} was requested}
+     */
+    public T getPreviousState(int index) {
+        return states[previousStates[slot(index)]];
+    }
+
+    /**
+     * {@return the state requested by the entry at {@code index}}
+     */
+    public T getNextState(int index) {
+        return states[nextStates[slot(index)]];
+    }
+
+    /**
+     * {@return the outcome of the entry at {@code index}}
+     */
+    public TransitionOutcome getOutcome(int index) {
+        return OUTCOMES[outcomes[slot(index)]];
+    }
+
+    /**
+     * {@return the id of the guard that rejected the entry at {@code index}, or {@link CompiledGuards#NO_GUARD} if no guard rejected it}
+     * @see CompiledGuards#getGuard(int)
+     */
+    public int getRejectingGuard(int index) {
+        return rejectingGuards[slot(index)];
+    }
+
+    /**
+     * Calculates how long the system has been in {@code state} during the last {@code windowMicros} microseconds.
+     * <p>Time before the oldest stored state change is counted as the state that change left</p>
+     * @param state the state to measure
+     * @param windowMicros the length of the window ending now, in microseconds
+     * @return the time spent in {@code state}, in microseconds
+     */
+    public long getTimeInState(T state, long windowMicros) {
+        long now = clockMicros.getAsLong();
+        long windowStart = now - windowMicros;
+
+        long end = now;
+        T stateAfter = currentState;
+        long total = 0;
+        for (int index = size - 1; index >= 0 && end > windowStart; index--) {
+            int slot = slot(index);
+            if (outcomes[slot] != TransitionOutcome.CHANGED.ordinal() && outcomes[slot] != TransitionOutcome.FORCED.ordinal()) continue;
+
+            long start = Math.max(timestamps[slot], windowStart);
+            if (stateAfter == state) total += Math.max(0, end - start);
+            end = start;
+            stateAfter = states[previousStates[slot]];
+        }
+        if (end > windowStart && stateAfter == state) total += end - windowStart;
+        return total;
+    }
+
+    /**
+     * Writes every entry as a line of text, oldest first, for example {@code 1234567 DISABLED -> TELEOP CHANGED}.
+     * Rejected entries also include the rejecting guard.
+     * @return the entries as text
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < size; index++) {
+            builder.append(getTimestamp(index)).append(' ')
+                    .append(getPreviousState(index)).append(" -> ").append(getNextState(index)).append(' ')
+                    .append(getOutcome(index));
+            int guard = getRejectingGuard(index);
+            if (guard >= 0) builder.append(" by guard ").append(guard).append(' ').append(stateGuards.getGuardName(guard));
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for history of size " + size);
+        }
+        return (head - size + index + timestamps.length) % timestamps.length;
+    }
+}
@@ -0,0 +1,17 @@
+package badgerutils.statemachine;
+
+/**
+ * The result of a request to change the state of a {@link StateMachine}, as recorded by {@link TransitionHistory}
+ */
+public enum TransitionOutcome {
+    /** The state changed */
+    CHANGED,
+    /** The state was changed with {@link StateMachine#setStateWithoutGuardsOrEdges(Enum)} */
+    FORCED,
+    /** The state did not change, because the next state was the current state */
+    SAME_STATE,
+    /** The state did not change, because of a static guard */
+    STATICALLY_DENIED,
+    /** The state did not change, because a guard rejected the transition */
+    GUARD_REJECTED
+}
@@ -0,0 +1,162 @@
+package badgerutils.statemachine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the rules of {@link Edges} or {@link Guards} as one {@link PartialTransition} per rule,
+ * instead of one entry for every pair of states it matches.
+ * <p>
+ *     Rules are kept in four lists, by which of their sides are 'any', and matched with {@link PartialTransition#matches(Enum, Enum)},
+ *     which tests the bits of an {@code EnumSet}. Memory grows with the number of rules, not the number of transitions they cover.
+ * <p>
+ *     Matching is only done when the rules are compiled, but it is done for every pair of states, so the rules that name
+ *     a state are also indexed by that state. A pair then only visits the rules naming its previous or next state.
+ * @param <T> the enum type
+ * @param <R> the type of the value attached to each rule
+ */
+final class TransitionRules<T extends Enum<T>, R> {
+    private record Rule<T extends Enum<T>, R>(PartialTransition<T> states, R value) {}
+
+    private final List<Rule<T, R>> stateToState = new ArrayList<>();
+    private final List<Rule<T, R>> stateToAny = new ArrayList<>();
+    private final List<Rule<T, R>> anyToState = new ArrayList<>();
+    private final List<Rule<T, R>> anyToAny = new ArrayList<>();
+
+    private final Map<T, List<Rule<T, R>>> stateToStateByPrevious = new HashMap<>();
+    private final Map<T, List<Rule<T, R>>> stateToAnyByPrevious = new HashMap<>();
+    private final Map<T, List<Rule<T, R>>> anyToStateByNext = new HashMap<>();
+
+    /**
+     * Adds a rule matching every pairing of {@code previousStates} and {@code nextStates}, where an empty set matches any state
+     */
+    void add(Set<T> previousStates, Set<T> nextStates, R value) {
+        PartialTransition<T> states = new PartialTransition<>(previousStates, nextStates);
+        Rule<T, R> rule = new Rule<>(states, value);
+        if (states.previousStates().isEmpty() && states.nextStates().isEmpty()) {
+            anyToAny.add(rule);
+        } else if (states.previousStates().isEmpty()) {
+            anyToState.add(rule);
+            index(anyToStateByNext, states.nextStates(), rule);
+        } else if (states.nextStates().isEmpty()) {
+            stateToAny.add(rule);
+            index(stateToAnyByPrevious, states.previousStates(), rule);
+        } else {
+            stateToState.add(rule);
+            index(stateToStateByPrevious, states.previousStates(), rule);
+        }
+    }
+
+    private static <T extends Enum<T>, R> void index(Map<T, List<Rule<T, R>>> index, Set<T> states, Rule<T, R> rule) {
+        for (T state : states) {
+            index.computeIfAbsent(state, key -> new ArrayList<>()).add(rule);
+        }
+    }
+
+    /**
+     * Gets the values of every rule matching a transition, where a rule naming an ancestor of a state also matches that
+     * state, as long as the transition exits or enters that ancestor. A move between two children of a parent state
+     * therefore matches neither the rules leaving the parent nor the rules entering it. Likewise, a move from a parent
+     * to one of its descendants does not exit the parent, and a move from a descendant to its ancestor does not enter
+     * the ancestor, so the 'state to any' and 'any to state' rules match the same states whose exit and entry edges run.
+     * A 'state to state' rule naming both states of the transition always matches.
+     * <p>Every exact match comes first, then 'state to any', 'any to state' and 'any to any'.
+     * Within each, values are ordered by the ancestors matched, innermost first, then by the order they were added.
+     * Each rule is matched at most once, even if it names both a state and one of its ancestors</p>
+     */
+    List<R> match(Transition<T> transition, StateHierarchy<T> hierarchy) {
+        List<T> previousPath = hierarchy.getPathToRoot(transition.previousState());
+        List<T> nextPath = hierarchy.getPathToRoot(transition.nextState());
+        List<T> exitedPath = getChangedPath(previousPath, nextPath);
+        List<T> enteredPath = getChangedPath(nextPath, previousPath);
+        // A changed path only starts with the state itself when the state is not an ancestor of the other state
+        List<T> exactPreviousPath = exitedPath.isEmpty() ? List.of(transition.previousState()) : exitedPath;
+        List<T> exactNextPath = enteredPath.isEmpty() ? List.of(transition.nextState()) : enteredPath;
+
+        // Without ancestors, each rule is visited at most once, so there is nothing to deduplicate
+        Set<Rule<T, R>> matched = exactPreviousPath.size() == 1 && exactNextPath.size() == 1 ? null : Collections.newSetFromMap(new IdentityHashMap<>());
+        List<R> values = new ArrayList<>();
+        for (T previousState : exactPreviousPath) {
+            for (T nextState : exactNextPath) {
+                for (Rule<T, R> rule : stateToStateByPrevious.getOrDefault(previousState, List.of())) {
+                    if (rule.states().matches(previousState, nextState) && isFirstMatch(matched, rule)) values.add(rule.value());
+                }
+            }
+        }
+        for (T previousState : exitedPath) {
+            for (Rule<T, R> rule : stateToAnyByPrevious.getOrDefault(previousState, List.of())) {
+                if (isFirstMatch(matched, rule)) values.add(rule.value());
+            }
+        }
+        for (T nextState : enteredPath) {
+            for (Rule<T, R> rule : anyToStateByNext.getOrDefault(nextState, List.of())) {
+                if (isFirstMatch(matched, rule)) values.add(rule.value());
+            }
+        }
+        for (Rule<T, R> rule : anyToAny) {
+            values.add(rule.value());
+        }
+        return values;
+    }
+
+    private static <T extends Enum<T>, R> boolean isFirstMatch(Set<Rule<T, R>> matched, Rule<T, R> rule) {
+        return matched == null || matched.add(rule);
+    }
+
+    /**
+     * {@return the states of {@code path} before the first common ancestor with {@code otherPath}, which is empty if the
+     * first state of {@code path} is itself in {@code otherPath}}
+     */
+    private static <T> List<T> getChangedPath(List<T> path, List<T> otherPath) {
+        if (path.size() == 1) return otherPath.contains(path.get(0)) ? List.of() : path;
+        List<T> changed = new ArrayList<>();
+        for (int i = 0; i < path.size() && !otherPath.contains(path.get(i)); i++) {
+            changed.add(path.get(i));
+        }
+        return changed;
+    }
+
+    /**
+     * {@return a description of the first rule {@code value} was added with, such as {@code "DISABLED -> any"}, or null if it was never added}
+     */
+    String describe(R value) {
+        for (List<Rule<T, R>> rules : List.of(stateToState, stateToAny, anyToState, anyToAny)) {
+            for (Rule<T, R> rule : rules) {
+                if (rule.value() == value) {
+                    return describe(rule.states().previousStates()) + " -> " + describe(rule.states().nextStates());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String describe(Set<?> states) {
+        if (states.isEmpty()) return "any";
+        return states.size() == 1 ? states.iterator().next().toString() : states.toString();
+    }
+
+    /**
+     * {@return the name of {@code value}: its own {@code toString()} if it overrides it, otherwise {@code description}}
+     */
+    static String nameOf(Object value, String description) {
+        String name = value.toString();
+        boolean isDefault = name.equals(value.getClass().getName() + "@" + Integer.toHexString(value.hashCode()));
+        return isDefault && description != null ? description : name;
+    }
+
+    /**
+     * Makes every name unique by numbering the repeats of a name, starting with {@code "#2"}
+     */
+    static void numberRepeats(String[] names) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            int count = counts.merge(names[i], 1, Integer::sum);
+            if (count > 1) names[i] = names[i] + " #" + count;
+        }
+    }
+}
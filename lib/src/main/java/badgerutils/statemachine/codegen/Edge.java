@@ -0,0 +1,27 @@
+package badgerutils.statemachine.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link StateMachineSpec} class as an edge, equivalent to a {@link badgerutils.statemachine.StateEdge}.
+ * <p>
+ *     The method must return {@code void}, and take either no parameters or the previous and next states.
+ *     Like {@link badgerutils.statemachine.Edges}, an empty {@link #from()} or {@link #to()} matches any state, and edges are
+ *     run with every exact match first, then 'state to any', 'any to state' and 'any to any', each in declaration order.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Edge {
+    /**
+     * {@return the names of the previous states the edge applies to, or none for any state}
+     */
+    String[] from() default {};
+
+    /**
+     * {@return the names of the next states the edge applies to, or none for any state}
+     */
+    String[] to() default {};
+}
@@ -0,0 +1,27 @@
+package badgerutils.statemachine.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link StateMachineSpec} class as a guard, equivalent to a {@link badgerutils.statemachine.StateGuardCondition}.
+ * <p>
+ *     The method must return {@code boolean}, and take either no parameters or the previous and next states.
+ *     Like {@link badgerutils.statemachine.Guards}, an empty {@link #from()} or {@link #to()} matches any state, and guards are
+ *     evaluated with every exact match first, then 'state to any', 'any to state' and 'any to any', each in declaration order.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Guard {
+    /**
+     * {@return the names of the previous states the guard applies to, or none for any state}
+     */
+    String[] from() default {};
+
+    /**
+     * {@return the names of the next states the guard applies to, or none for any state}
+     */
+    String[] to() default {};
+}
@@ -0,0 +1,279 @@
+package badgerutils.statemachine.codegen;
+
+import com.google.auto.service.AutoService;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a specialized state machine for every class annotated with {@link StateMachineSpec}.
+ * <p>
+ *     The guards and edges of every transition are resolved at compile time, in the same order as
+ *     {@link badgerutils.statemachine.CompiledGuards} and {@link badgerutils.statemachine.CompiledEdges}. Transitions with the
+ *     same guards or edges share one {@code case} of a {@code switch} on {@code previousState.ordinal() * stateCount + nextState.ordinal()}.
+ */
+@AutoService(Processor.class)
+@SupportedAnnotationTypes("badgerutils.statemachine.codegen.StateMachineSpec")
+public class StateMachineProcessor extends AbstractProcessor {
+    private static final String GENERATED_SUFFIX = "StateMachine";
+
+    private record Rule(ExecutableElement method, List<String> from, List<String> to) {}
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(StateMachineSpec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@StateMachineSpec can only be used on a class");
+                continue;
+            }
+            try {
+                generate((TypeElement) element);
+            } catch (IOException e) {
+                error(element, "Could not write the generated state machine: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement spec) throws IOException {
+        TypeElement enumType = getStatesType(spec);
+        if (enumType == null || enumType.getKind() != ElementKind.ENUM) {
+            error(spec, "@StateMachineSpec must name an enum");
+            return;
+        }
+        List<String> states = new ArrayList<>();
+        for (Element constant : enumType.getEnclosedElements()) {
+            if (constant.getKind() == ElementKind.ENUM_CONSTANT) states.add(constant.getSimpleName().toString());
+        }
+
+        List<Rule> guards = new ArrayList<>();
+        List<Rule> edges = new ArrayList<>();
+        for (Element member : spec.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD) continue;
+            ExecutableElement method = (ExecutableElement) member;
+            Guard guard = method.getAnnotation(Guard.class);
+            Edge edge = method.getAnnotation(Edge.class);
+            if (guard != null && isValidMethod(method, TypeKind.BOOLEAN, enumType, states, guard.from(), guard.to())) {
+                guards.add(new Rule(method, List.of(guard.from()), List.of(guard.to())));
+            }
+            if (edge != null && isValidMethod(method, TypeKind.VOID, enumType, states, edge.from(), edge.to())) {
+                edges.add(new Rule(method, List.of(edge.from()), List.of(edge.to())));
+            }
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(spec).getQualifiedName().toString();
+        String className = spec.getSimpleName() + GENERATED_SUFFIX;
+        String specName = spec.getQualifiedName().toString();
+        String enumName = enumType.getQualifiedName().toString();
+
+        String source = """
+                %s
+                /**
+                 * A state machine over {@link %s}, generated from the guards and edges of {@link %s}.
+                 * <p>Behaves like a {@code badgerutils.statemachine.StateMachine} built from the same guards and edges.</p>
+                 */
+                @javax.annotation.processing.Generated("%s")
+                public final class %s {
+                    private static final int STATE_COUNT = %d;
+
+                    private final %s spec;
+                    private %s currentState;
+
+                    /**
+                     * Creates a new state machine with the current state set to {@code initialState}
+                     * @param spec the object to call the guards and edges on
+                     * @param initialState the initial state of the system
+                     */
+                    public %s(%s spec, %s initialState) {
+                        this.spec = spec;
+                        this.currentState = initialState;
+                    }
+
+                    /**
+                     * {@return the current state of the system}
+                     */
+                    public %s getCurrentState() {
+                        return currentState;
+                    }
+
+                    /**
+                     * Checks whether the current system's state can change to {@code nextState}. The state is not allowed to change to itself
+                     * @param nextState the potential next state of the system
+                     * @return if the state can change to {@code nextState}
+                     */
+                    public boolean canChangeState(%s nextState) {
+                        return currentState != nextState && checkGuards(currentState, nextState);
+                    }
+
+                    /**
+                     * Tries to change the state of the system to {@code nextState}, running the matching edges
+                     * @param nextState the potential next state of the system
+                     * @return whether the state changed or not
+                     */
+                    public boolean tryChangeState(%s nextState) {
+                        %s previousState = currentState;
+                        if (previousState == nextState || !checkGuards(previousState, nextState)) return false;
+                        runEdges(previousState, nextState);
+                        currentState = nextState;
+                        return true;
+                    }
+
+                    /**
+                     * Changes the state of the system to {@code nextState} without checking the guards or running the edges
+                     * @param nextState the next state of the system
+                     */
+                    public void setStateWithoutGuardsOrEdges(%s nextState) {
+                        currentState = nextState;
+                    }
+
+                    private boolean checkGuards(%s previousState, %s nextState) {
+                        return switch (previousState.ordinal() * STATE_COUNT + nextState.ordinal()) {
+                %s            default -> true;
+                        };
+                    }
+
+                    private void runEdges(%s previousState, %s nextState) {
+                        switch (previousState.ordinal() * STATE_COUNT + nextState.ordinal()) {
+                %s            default -> {}
+                        }
+                    }
+                }
+                """.formatted(
+                packageName.isEmpty() ? "" : "package " + packageName + ";\n",
+                enumName, specName,
+                StateMachineProcessor.class.getName(), className, states.size(),
+                specName, enumName,
+                className, specName, enumName,
+                enumName, enumName, enumName, enumName, enumName,
+                enumName, enumName, createCases(states, guards, true),
+                enumName, enumName, createCases(states, edges, false));
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? className : packageName + "." + className, spec).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    /**
+     * Creates the {@code case} lines of the guard or edge {@code switch}, grouping transitions with the same body
+     */
+    private static String createCases(List<String> states, List<Rule> rules, boolean guards) {
+        Map<String, List<Integer>> cases = new LinkedHashMap<>();
+        for (int previous = 0; previous < states.size(); previous++) {
+            for (int next = 0; next < states.size(); next++) {
+                if (previous == next) continue;
+                List<String> calls = getCalls(rules, states.get(previous), states.get(next));
+                if (calls.isEmpty()) continue;
+
+                String body = guards ? String.join(" && ", calls) + ";" : "{ " + String.join("; ", calls) + "; }";
+                cases.computeIfAbsent(body, key -> new ArrayList<>()).add(previous * states.size() + next);
+            }
+        }
+
+        StringBuilder source = new StringBuilder();
+        cases.forEach((body, labels) -> {
+            source.append("            case ");
+            for (int i = 0; i < labels.size(); i++) {
+                if (i > 0) source.append(", ");
+                source.append(labels.get(i));
+            }
+            source.append(" -> ").append(body).append('\n');
+        });
+        return source.toString();
+    }
+
+    /**
+     * {@return the calls of every rule matching a transition: exact matches, then 'state to any', 'any to state' and 'any to any'}
+     */
+    private static List<String> getCalls(List<Rule> rules, String previousState, String nextState) {
+        List<String> calls = new ArrayList<>();
+        for (int kind = 0; kind < 4; kind++) {
+            for (Rule rule : rules) {
+                boolean anyPrevious = rule.from().isEmpty();
+                boolean anyNext = rule.to().isEmpty();
+                int ruleKind = (anyPrevious ? 2 : 0) + (anyNext ? 1 : 0);
+                if (ruleKind != kind) continue;
+                if (!anyPrevious && !rule.from().contains(previousState)) continue;
+                if (!anyNext && !rule.to().contains(nextState)) continue;
+
+                String arguments = rule.method().getParameters().isEmpty() ? "()" : "(previousState, nextState)";
+                calls.add("spec." + rule.method().getSimpleName() + arguments);
+            }
+        }
+        return calls;
+    }
+
+    private boolean isValidMethod(ExecutableElement method, TypeKind returnKind, TypeElement enumType,
+                                  List<String> states, String[] from, String[] to) {
+        if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)) {
+            error(method, "Guard and edge methods must not be private or static");
+            return false;
+        }
+        if (method.getReturnType().getKind() != returnKind) {
+            error(method, "Method must return " + returnKind.name().toLowerCase());
+            return false;
+        }
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        TypeMirror enumMirror = enumType.asType();
+        boolean validParameters = parameters.isEmpty() || (parameters.size() == 2
+                && processingEnv.getTypeUtils().isSameType(parameters.get(0).asType(), enumMirror)
+                && processingEnv.getTypeUtils().isSameType(parameters.get(1).asType(), enumMirror));
+        if (!validParameters) {
+            error(method, "Method must take no parameters, or the previous and next states as " + enumType.getSimpleName());
+            return false;
+        }
+
+        for (String[] names : new String[][]{from, to}) {
+            for (String name : names) {
+                if (!states.contains(name)) {
+                    error(method, name + " is not a constant of " + enumType.getSimpleName());
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static TypeElement getStatesType(TypeElement spec) {
+        for (AnnotationMirror annotation : spec.getAnnotationMirrors()) {
+            if (!annotation.getAnnotationType().toString().equals(StateMachineSpec.class.getName())) continue;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals("value") && entry.getValue().getValue() instanceof DeclaredType type) {
+                    return (TypeElement) type.asElement();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,40 @@
+package badgerutils.statemachine.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose {@link Guard} and {@link Edge} methods define a state machine over the enum {@link #value()}.
+ * <p>
+ *     {@link StateMachineProcessor} generates a class named after the annotated class with the suffix {@code StateMachine},
+ *     in the same package. It behaves like a {@link badgerutils.statemachine.StateMachine} built from the same guards
+ *     and edges, but dispatches with a {@code switch} on the ordinals of the transition and calls the methods directly,
+ *     so the JIT can inline them instead of making megamorphic interface calls.
+ * <p>
+ *     With Gradle, the processor only runs if this library is also added to the {@code annotationProcessor} configuration
+ *     of the robot project. The processor is registered in {@code META-INF/services} of the library jar, so a plain
+ *     {@code javac} or Maven build that is not given a {@code -processorpath} discovers and runs it from the classpath.
+ *     It only handles this annotation, so it does nothing for sources without it; pass {@code -proc:none} to disable it.
+ * <pre>{@code
+ * @StateMachineSpec(ArmState.class)
+ * class ArmSpec {
+ *     @Guard(from = "STOWED", to = "SCORING")
+ *     boolean isClearOfChassis() { ... }
+ *
+ *     @Edge(to = "SCORING")
+ *     void useScoringGains(ArmState previousState, ArmState nextState) { ... }
+ * }
+ *
+ * ArmSpecStateMachine stateMachine = new ArmSpecStateMachine(new ArmSpec(), ArmState.STOWED);
+ * }</pre>
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface StateMachineSpec {
+    /**
+     * {@return the enum of the states}
+     */
+    Class<? extends Enum<?>> value();
+}
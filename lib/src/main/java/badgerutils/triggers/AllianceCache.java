@@ -0,0 +1,83 @@
+package badgerutils.triggers;
+
+import edu.wpi.first.util.function.BooleanConsumer;
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caches the alliance of the robot, read from the {@link DriverStation} once per cycle by the {@link RobotModeSnapshot}.
+ * <p>
+ *     Reading the alliance is a field read. Listeners added with {@link #addListener(BooleanConsumer)} are only called
+ *     when the alliance changes.
+ * <p>
+ *     Like {@link AllianceTriggers#isRedAlliance()}, the alliance is considered red while it is not present.
+ * <p>
+ *     The cache is only updated by {@link #update()} or {@link RobotModeSnapshot#update()}, which must be called once per
+ *     cycle at the start of {@code robotPeriodic()}, before {@code CommandScheduler.getInstance().run()}. Every subsystem
+ *     and {@link badgerutils.field.AllianceFlipper} then sees the alliance of the current cycle. Until the first update,
+ *     the alliance is read from the {@code DriverStation} every time, as {@link AllianceTriggers#isRedAlliance()} always did.
+ */
+public final class AllianceCache {
+    private static final List<BooleanConsumer> listeners = new ArrayList<>();
+    /**
+     * The alliance seen by the last update, so that the listeners are only called when it changes
+     */
+    private static boolean red = true;
+    private static int version;
+
+    private AllianceCache() {}
+
+    /**
+     * Returns whether the Driverstation was on the red alliance when the cache was last updated, or whether it is on the
+     * red alliance now if the cache was never updated
+     *
+     * @return true if on the red alliance or the alliance is not present, false if on the blue alliance
+     */
+    public static boolean isRedAlliance() {
+        return RobotModeSnapshot.isRedAlliance();
+    }
+
+    /**
+     * Returns whether the Driverstation was on the blue alliance when the cache was last updated, or whether it is on the
+     * blue alliance now if the cache was never updated
+     *
+     * @return true if on the blue alliance, false if on the red alliance or the alliance is not present
+     */
+    public static boolean isBlueAlliance() {
+        return !isRedAlliance();
+    }
+
+    /**
+     * {@return a counter that increases every time the alliance changes}
+     */
+    public static int getVersion() {
+        return version;
+    }
+
+    /**
+     * Adds a listener that is called by {@link #update()} with whether the alliance is red every time the alliance changes
+     * @param listener the listener to add
+     */
+    public static void addListener(BooleanConsumer listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Updates the {@link RobotModeSnapshot}, calling the listeners if the alliance changed.
+     * Must be called once per cycle, at the start of {@code robotPeriodic()}
+     */
+    public static void update() {
+        RobotModeSnapshot.update();
+    }
+
+    static void set(boolean isRed) {
+        if (isRed == red) return;
+        red = isRed;
+        version++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).accept(red);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package badgerutils.triggers;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.event.EventLoop;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 
@@ -8,13 +7,13 @@ public final class AllianceTriggers {
 
     private AllianceTriggers(){}
     /**
-     * Returns whether the Driverstation is on the red alliance
+     * Returns whether the Driverstation is on the red alliance. It is read from the {@link AllianceCache} once
+     * {@link AllianceCache#update()} is called every cycle, and from the {@code DriverStation} until then
      *
-     * @return true if on the red alliance, false if on the blue alliance or the alliance is not present
+     * @return true if on the red alliance or the alliance is not present, false if on the blue alliance
      */
     public static boolean isRedAlliance() {
-        var alliance = DriverStation.getAlliance();
-        return alliance.isEmpty() || (alliance.get() == DriverStation.Alliance.Red);
+        return AllianceCache.isRedAlliance();
     }
 
     /**
@@ -32,7 +31,7 @@ public final class AllianceTriggers {
      * @return the trigger
      */
     public static Trigger redAlliance(EventLoop eventLoop){
-        return new Trigger(eventLoop, AllianceTriggers::isRedAlliance);
+        return RobotModeSnapshot.trigger(AllianceCache::isRedAlliance, eventLoop);
     }
 
     /**
@@ -41,6 +40,6 @@ public final class AllianceTriggers {
      * @return the trigger
      */
     public static Trigger blueAlliance(EventLoop eventLoop){
-        return new Trigger(eventLoop, AllianceTriggers::isBlueAlliance);
+        return RobotModeSnapshot.trigger(AllianceCache::isBlueAlliance, eventLoop);
     }
 }
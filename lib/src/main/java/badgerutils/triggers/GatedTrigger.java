@@ -0,0 +1,61 @@
+package badgerutils.triggers;
+
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.wpilibj.event.EventLoop;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * A trigger polled by a gated loop, which its owner only polls when something the condition reads has changed, such as
+ * the state of a {@code StateMachine} or the inputs of a {@code NetworkInputRegistry}.
+ * <p>
+ *     Its own bindings, such as {@code onTrue} and {@code whileTrue}, only react to changes of its condition, so they
+ *     run on the gated loop. Compositions with other conditions, which may change in any cycle, are created on the loop
+ *     the trigger was requested for instead, so that they are polled every cycle like any other trigger. Only
+ *     {@link #negate()} stays on the gated loop, as it changes exactly when this trigger does.
+ * </p>
+ */
+public final class GatedTrigger extends Trigger {
+    private final EventLoop gatedLoop;
+    private final EventLoop eventLoop;
+
+    /**
+     * Creates a new {@link GatedTrigger}
+     * @param gatedLoop the loop that is only polled when the condition may have changed
+     * @param eventLoop the loop the trigger was requested for, which polls compositions of this trigger
+     * @param condition the condition of the trigger
+     */
+    public GatedTrigger(EventLoop gatedLoop, EventLoop eventLoop, BooleanSupplier condition) {
+        super(gatedLoop, condition);
+        this.gatedLoop = gatedLoop;
+        this.eventLoop = eventLoop;
+    }
+
+    @Override
+    public Trigger and(BooleanSupplier trigger) {
+        return new Trigger(eventLoop, () -> getAsBoolean() && trigger.getAsBoolean());
+    }
+
+    @Override
+    public Trigger or(BooleanSupplier trigger) {
+        return new Trigger(eventLoop, () -> getAsBoolean() || trigger.getAsBoolean());
+    }
+
+    @Override
+    public Trigger negate() {
+        return new GatedTrigger(gatedLoop, eventLoop, () -> !getAsBoolean());
+    }
+
+    @Override
+    public Trigger debounce(double seconds, Debouncer.DebounceType type) {
+        return new Trigger(eventLoop, new BooleanSupplier() {
+            private final Debouncer debouncer = new Debouncer(seconds, type);
+
+            @Override
+            public boolean getAsBoolean() {
+                return debouncer.calculate(GatedTrigger.this.getAsBoolean());
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package badgerutils.triggers;
+
+import badgerutils.triggers.RobotModeSnapshot.Mode;
+
+/**
+ * Packs the state of the robot read by the {@link RobotModeSnapshot} into an {@code int}, and reads it back.
+ * <p>It does not use the {@code DriverStation}, so the packing can be tested without WPILib</p>
+ */
+final class RobotModeFlags {
+    private static final Mode[] MODES = Mode.values();
+    private static final int MODE_MASK = 0b11;
+    private static final int ENABLED = 1 << 2;
+    private static final int RED_ALLIANCE = 1 << 3;
+    private static final int ALLIANCE_PRESENT = 1 << 4;
+    private static final int FMS_ATTACHED = 1 << 5;
+
+    private RobotModeFlags() {}
+
+    /**
+     * Packs the state of the robot into an int
+     * @param mode the mode of the robot
+     * @param enabled whether the robot is enabled
+     * @param alliancePresent whether the alliance is present
+     * @param red whether the alliance is red, ignored if the alliance is not present
+     * @param fmsAttached whether the FMS is attached
+     * @return the packed flags
+     */
+    static int pack(Mode mode, boolean enabled, boolean alliancePresent, boolean red, boolean fmsAttached) {
+        int flags = mode.ordinal();
+        if (enabled) flags |= ENABLED;
+        if (alliancePresent) flags |= ALLIANCE_PRESENT;
+        if (alliancePresent && red) flags |= RED_ALLIANCE;
+        if (fmsAttached) flags |= FMS_ATTACHED;
+        return flags;
+    }
+
+    static Mode getMode(int flags) {
+        return MODES[flags & MODE_MASK];
+    }
+
+    static boolean isEnabled(int flags) {
+        return (flags & ENABLED) != 0;
+    }
+
+    /**
+     * {@return whether the flags are enabled in {@code mode}}
+     */
+    static boolean isEnabled(int flags, Mode mode) {
+        return (flags & (MODE_MASK | ENABLED)) == (mode.ordinal() | ENABLED);
+    }
+
+    /**
+     * {@return true if the alliance is red or not present, false if the alliance is blue}
+     */
+    static boolean isRedAlliance(int flags) {
+        return (flags & (RED_ALLIANCE | ALLIANCE_PRESENT)) != ALLIANCE_PRESENT;
+    }
+
+    static boolean isAlliancePresent(int flags) {
+        return (flags & ALLIANCE_PRESENT) != 0;
+    }
+
+    static boolean isFMSAttached(int flags) {
+        return (flags & FMS_ATTACHED) != 0;
+    }
+}
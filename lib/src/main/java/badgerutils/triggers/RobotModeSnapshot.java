@@ -0,0 +1,190 @@
+package badgerutils.triggers;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.event.EventLoop;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A snapshot of the state of the robot, read from the {@link DriverStation} once per cycle.
+ * <p>
+ *     The snapshot is only taken by {@link #update()}, which must be called once per cycle at the start of
+ *     {@code robotPeriodic()}, before {@code CommandScheduler.getInstance().run()}:
+ *     <pre>{@code
+ *     public void robotPeriodic() {
+ *         RobotModeSnapshot.update();
+ *         CommandScheduler.getInstance().run();
+ *     }
+ *     }</pre>
+ *     Whether the robot is enabled, its mode, its alliance and whether the FMS is attached are then packed into one
+ *     {@code int}, so reading them is a field read, and every subsystem and trigger sees the same state for the whole cycle.
+ * <p>
+ *     Until {@code update()} is called for the first time, every getter reads the {@code DriverStation} directly, so code
+ *     that never calls it still sees the current state. Once it has been called, the snapshot is never refreshed by
+ *     anything else: if {@code update()} stops being called, the snapshot stops changing.
+ * <p>
+ *     Triggers created with {@link #trigger(BooleanSupplier, EventLoop)} are polled by the given {@link EventLoop} like
+ *     any other trigger, and their conditions are field reads. Code that should only run when the state changes can be
+ *     added with {@link #addListener(Runnable)} instead, and is called by {@code update()}.
+ */
+public final class RobotModeSnapshot {
+    /**
+     * The mode of the robot, whether or not it is enabled
+     */
+    public enum Mode {
+        AUTONOMOUS,
+        TELEOP,
+        TEST
+    }
+
+    private static final List<Runnable> listeners = new ArrayList<>();
+    private static boolean updated;
+    private static int flags = -1;
+    private static double matchTime = -1;
+    private static int version;
+
+    private RobotModeSnapshot() {}
+
+    /**
+     * {@return the state of the robot packed into an int, for logging, read from the DriverStation if {@link #update()}
+     * was never called}
+     */
+    public static int getFlags() {
+        return updated ? flags : readFlags();
+    }
+
+    /**
+     * {@return a counter that increases every time {@link #update()} sees the packed flags change}
+     */
+    public static int getVersion() {
+        return version;
+    }
+
+    /**
+     * {@return whether {@link #update()} was called, so that the getters read the snapshot instead of the DriverStation}
+     */
+    public static boolean isUpdated() {
+        return updated;
+    }
+
+    /**
+     * {@return whether the robot is enabled}
+     */
+    public static boolean isEnabled() {
+        return RobotModeFlags.isEnabled(getFlags());
+    }
+
+    /**
+     * {@return whether the robot is disabled}
+     */
+    public static boolean isDisabled() {
+        return !isEnabled();
+    }
+
+    /**
+     * {@return the mode of the robot}
+     */
+    public static Mode getMode() {
+        return RobotModeFlags.getMode(getFlags());
+    }
+
+    /**
+     * {@return whether the robot is enabled in autonomous mode}
+     */
+    public static boolean isAutonomousEnabled() {
+        return RobotModeFlags.isEnabled(getFlags(), Mode.AUTONOMOUS);
+    }
+
+    /**
+     * {@return whether the robot is enabled in teleop mode}
+     */
+    public static boolean isTeleopEnabled() {
+        return RobotModeFlags.isEnabled(getFlags(), Mode.TELEOP);
+    }
+
+    /**
+     * {@return whether the robot is enabled in test mode}
+     */
+    public static boolean isTestEnabled() {
+        return RobotModeFlags.isEnabled(getFlags(), Mode.TEST);
+    }
+
+    /**
+     * Returns whether the Driverstation is on the red alliance
+     *
+     * @return true if on the red alliance or the alliance is not present, false if on the blue alliance
+     */
+    public static boolean isRedAlliance() {
+        return RobotModeFlags.isRedAlliance(getFlags());
+    }
+
+    /**
+     * {@return whether the alliance is present}
+     */
+    public static boolean isAlliancePresent() {
+        return RobotModeFlags.isAlliancePresent(getFlags());
+    }
+
+    /**
+     * {@return whether the FMS is attached}
+     */
+    public static boolean isFMSAttached() {
+        return RobotModeFlags.isFMSAttached(getFlags());
+    }
+
+    /**
+     * {@return the match time in seconds, as returned by {@link DriverStation#getMatchTime()}}
+     */
+    public static double getMatchTime() {
+        return updated ? matchTime : DriverStation.getMatchTime();
+    }
+
+    /**
+     * Creates a {@link Trigger} on {@code condition}, which should only depend on this snapshot
+     * @param condition the condition of the trigger
+     * @param eventLoop the event loop that polls the trigger
+     * @return the trigger
+     */
+    public static Trigger trigger(BooleanSupplier condition, EventLoop eventLoop) {
+        return new Trigger(eventLoop, condition);
+    }
+
+    /**
+     * Adds a listener that is called by {@link #update()} every time the packed flags change, after the
+     * {@link AllianceCache} is updated.
+     * <p>Unlike a trigger, the listener is not called in cycles where the state of the robot stays the same</p>
+     * @param listener the listener to add
+     */
+    public static void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads the state of the robot from the {@link DriverStation}, updating the {@link AllianceCache} if the alliance changed.
+     * Must be called once per cycle, at the start of {@code robotPeriodic()}
+     */
+    public static void update() {
+        int nextFlags = readFlags();
+        matchTime = DriverStation.getMatchTime();
+        updated = true;
+
+        if (nextFlags == flags) return;
+        flags = nextFlags;
+        version++;
+        AllianceCache.set(RobotModeFlags.isRedAlliance(flags));
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).run();
+        }
+    }
+
+    private static int readFlags() {
+        var alliance = DriverStation.getAlliance();
+        Mode mode = DriverStation.isAutonomous() ? Mode.AUTONOMOUS : DriverStation.isTest() ? Mode.TEST : Mode.TELEOP;
+
+        return RobotModeFlags.pack(mode, DriverStation.isEnabled(), alliance.isPresent(),
+                alliance.isPresent() && alliance.get() == DriverStation.Alliance.Red, DriverStation.isFMSAttached());
+    }
+}
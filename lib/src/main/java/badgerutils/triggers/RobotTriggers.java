@@ -1,6 +1,5 @@
 package badgerutils.triggers;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.event.EventLoop;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 
@@ -13,7 +12,7 @@ public final class RobotTriggers {
      * @return A trigger that is true when the robot is enabled in autonomous mode.
      */
     public static Trigger autonomous(EventLoop eventLoop) {
-        return new Trigger(eventLoop, DriverStation::isAutonomousEnabled);
+        return RobotModeSnapshot.trigger(RobotModeSnapshot::isAutonomousEnabled, eventLoop);
     }
 
     /**
@@ -22,7 +21,7 @@ public final class RobotTriggers {
      * @return A trigger that is true when the robot is enabled in teleop mode.
      */
     public static Trigger teleop(EventLoop eventLoop) {
-        return new Trigger(eventLoop, DriverStation::isTeleopEnabled);
+        return RobotModeSnapshot.trigger(RobotModeSnapshot::isTeleopEnabled, eventLoop);
     }
 
     /**
@@ -31,7 +30,7 @@ public final class RobotTriggers {
      * @return A trigger that is true when the robot is disabled.
      */
     public static Trigger disabled(EventLoop eventLoop) {
-        return new Trigger(eventLoop, DriverStation::isDisabled);
+        return RobotModeSnapshot.trigger(RobotModeSnapshot::isDisabled, eventLoop);
     }
 
     /**
@@ -40,6 +39,6 @@ public final class RobotTriggers {
      * @return A trigger that is true when the robot is enabled in test mode.
      */
     public static Trigger test(EventLoop eventLoop) {
-        return new Trigger(eventLoop, DriverStation::isTestEnabled);
+        return RobotModeSnapshot.trigger(RobotModeSnapshot::isTestEnabled, eventLoop);
     }
 }
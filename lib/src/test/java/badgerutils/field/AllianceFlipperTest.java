@@ -0,0 +1,73 @@
+package badgerutils.field;
+
+import badgerutils.field.AllianceFlipper.Symmetry;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class AllianceFlipperTest {
+    private static final double LENGTH = 16.5;
+    private static final double WIDTH = 8.0;
+
+    @Test
+    void rotationalTest(){
+        AllianceFlipper flipper = new AllianceFlipper(LENGTH, WIDTH, Symmetry.ROTATIONAL, false);
+
+        assertEquals(new Translation2d(15.5, 6.0), flipper.flip(new Translation2d(1.0, 2.0)));
+        assertEquals(-150, flipper.flip(Rotation2d.fromDegrees(30)).getDegrees(), 1e-9);
+        assertEquals(90, flipper.flip(Rotation2d.fromDegrees(-90)).getDegrees(), 1e-9);
+
+        Pose2d pose = new Pose2d(2.0, 7.0, Rotation2d.fromDegrees(45));
+        assertEquals(new Pose2d(14.5, 1.0, Rotation2d.fromDegrees(-135)), flipper.flip(pose));
+        assertEquals(pose, flipper.flip(flipper.flip(pose)));
+    }
+
+    @Test
+    void mirroredTest(){
+        AllianceFlipper flipper = new AllianceFlipper(LENGTH, WIDTH, Symmetry.MIRRORED, false);
+
+        assertEquals(new Translation2d(15.5, 2.0), flipper.flip(new Translation2d(1.0, 2.0)));
+        assertEquals(150, flipper.flip(Rotation2d.fromDegrees(30)).getDegrees(), 1e-9);
+        assertEquals(-90, flipper.flip(Rotation2d.fromDegrees(-90)).getDegrees(), 1e-9);
+        assertEquals(180, Math.abs(flipper.flip(Rotation2d.fromDegrees(0)).getDegrees()), 1e-9);
+
+        Pose2d pose = new Pose2d(2.0, 7.0, Rotation2d.fromDegrees(45));
+        assertEquals(new Pose2d(14.5, 7.0, Rotation2d.fromDegrees(135)), flipper.flip(pose));
+        assertEquals(pose, flipper.flip(flipper.flip(pose)));
+    }
+
+    @Test
+    void allianceValueTest(){
+        AllianceFlipper flipper = new AllianceFlipper(LENGTH, WIDTH, Symmetry.ROTATIONAL, false);
+        int[] flips = {0};
+        AllianceValue<Translation2d> translation = flipper.register(new Translation2d(1.0, 2.0), blue -> {
+            flips[0]++;
+            return flipper.flip(blue);
+        });
+        AllianceValue<List<Pose2d>> waypoints = flipper.waypoints(List.of(
+                new Pose2d(1.0, 1.0, Rotation2d.fromDegrees(0)), new Pose2d(3.0, 2.0, Rotation2d.fromDegrees(90))));
+
+        assertSame(translation.getBlue(), translation.get());
+        assertEquals(0, flips[0], "the red value is not computed while blue");
+
+        flipper.update(true);
+        assertEquals(new Translation2d(15.5, 6.0), translation.get());
+        assertEquals(List.of(new Pose2d(15.5, 7.0, Rotation2d.fromDegrees(180)), new Pose2d(13.5, 6.0, Rotation2d.fromDegrees(-90))),
+                waypoints.get());
+
+        flipper.update(false);
+        assertSame(translation.getBlue(), translation.get());
+        flipper.update(true);
+        assertSame(translation.getRed(), translation.get());
+        assertEquals(1, flips[0], "the red value is computed once");
+
+        AllianceValue<Translation2d> registeredWhileRed = flipper.translation(new Translation2d(4.0, 4.0));
+        assertEquals(new Translation2d(12.5, 4.0), registeredWhileRed.get());
+    }
+}
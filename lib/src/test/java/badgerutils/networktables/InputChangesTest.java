@@ -0,0 +1,208 @@
+package badgerutils.networktables;
+
+import badgerutils.networktables.NetworkInputRegistry.BooleanInput;
+import badgerutils.networktables.NetworkInputRegistry.DoubleInput;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InputChangesTest {
+    private static final class MapInputTable implements InputTable {
+        private final Map<String, Object> values = new HashMap<>();
+
+        @Override
+        public void put(String key, boolean value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void put(String key, long value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void put(String key, int value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public void put(String key, double value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public boolean get(String key, boolean defaultValue) {
+            return (boolean) values.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public long get(String key, long defaultValue) {
+            return (long) values.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public int get(String key, int defaultValue) {
+            return (int) values.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public double get(String key, double defaultValue) {
+            return (double) values.getOrDefault(key, defaultValue);
+        }
+    }
+
+    private final List<Boolean> published = new ArrayList<>();
+    private InputChanges changes;
+    private BooleanInput button;
+    private DoubleInput speed;
+
+    @BeforeEach
+    void setup(){
+        changes = new InputChanges();
+        button = new BooleanInput("/Dashboard/Button", published::add, false, 250_000);
+        speed = new DoubleInput("/Dashboard/Speed", value -> {}, 1.0);
+        changes.add(button);
+        changes.add(speed);
+    }
+
+    @Test
+    void logsOnlyChangesTest(){
+        MapInputTable table = new MapInputTable();
+        changes.toLog(table);
+        assertEquals(Map.of("Dashboard/Button", false, "PressTimestamps/Dashboard/Button", 0L,
+                "ReleaseTimestamps/Dashboard/Button", 0L, "Dashboard/Speed", 1.0), table.values);
+
+        table.values.clear();
+        changes.update();
+        changes.toLog(table);
+        assertTrue(table.values.isEmpty(), "nothing is written while nothing changes");
+
+        speed.receive(1.0);
+        changes.received(speed);
+        changes.update();
+        changes.toLog(table);
+        assertTrue(table.values.isEmpty(), "receiving the same value is not a change");
+
+        int version = changes.getVersion();
+        speed.receive(2.0);
+        changes.received(speed);
+        changes.update();
+        changes.toLog(table);
+        assertEquals(Map.of("Dashboard/Speed", 2.0), table.values);
+        assertEquals(version + 1, changes.getVersion());
+    }
+
+    @Test
+    void pressWithinOneCycleTest(){
+        MapInputTable table = new MapInputTable();
+        changes.toLog(table);
+        table.values.clear();
+
+        button.receive(true, 1_000, 1_000);
+        button.receive(false, 1_200, 1_200);
+        changes.received(button);
+        changes.received(button);
+        changes.update();
+        changes.toLog(table);
+        assertTrue(button.get(), "a press released within one cycle is seen for one cycle");
+        assertEquals(Map.of("Dashboard/Button", true, "PressTimestamps/Dashboard/Button", 1_000L,
+                "ReleaseTimestamps/Dashboard/Button", 1_200L), table.values);
+
+        table.values.clear();
+        changes.update();
+        changes.toLog(table);
+        assertFalse(button.get());
+        assertEquals(false, table.values.get("Dashboard/Button"));
+
+        table.values.clear();
+        changes.update();
+        changes.toLog(table);
+        assertTrue(table.values.isEmpty(), "a settled input is not updated again");
+    }
+
+    /**
+     * Receives the values of one cycle, then updates the inputs and returns the button's value for that cycle
+     */
+    private boolean cycle(boolean... values) {
+        for (boolean value : values) {
+            button.receive(value, 0, 0);
+            changes.received(button);
+        }
+        changes.update();
+        return button.get();
+    }
+
+    @Test
+    void consecutivePressesTest(){
+        assertTrue(cycle(true, false));
+        assertFalse(cycle(true, false), "the release of the first press is shown before the second press");
+        assertTrue(cycle());
+        assertFalse(cycle());
+        assertFalse(cycle());
+
+        assertTrue(cycle(true, false, true, false, true, false));
+        assertFalse(cycle());
+        assertTrue(cycle());
+        assertFalse(cycle());
+        assertTrue(cycle(), "every press is shown, even three within one cycle");
+        assertFalse(cycle());
+        assertFalse(cycle());
+    }
+
+    @Test
+    void releaseAndPressWhileHeldTest(){
+        assertTrue(cycle(true));
+        assertTrue(cycle(), "a held press stays true");
+        assertFalse(cycle(false, true), "a release and press within one cycle is still released");
+        assertTrue(cycle());
+        assertTrue(cycle());
+        assertFalse(cycle(false));
+    }
+
+    @Test
+    void autoResetTest(){
+        // The server clock is far ahead of the local clock, which the reset is timed with
+        button.receive(true, 90_000_000, 1_000);
+        changes.received(button);
+        changes.update();
+
+        changes.reset(250_999);
+        assertTrue(published.isEmpty());
+        changes.reset(251_000);
+        assertEquals(List.of(false), published);
+        changes.reset(300_000);
+        assertEquals(List.of(false), published, "each press is reset once");
+    }
+
+    @Test
+    void replayFromLogTest(){
+        MapInputTable table = new MapInputTable();
+        table.put("Dashboard/Button", true);
+        table.put("PressTimestamps/Dashboard/Button", 5_000L);
+        table.put("ReleaseTimestamps/Dashboard/Button", 4_000L);
+
+        int version = changes.getVersion();
+        changes.fromLog(table);
+        assertTrue(button.get());
+        assertEquals(5_000, button.getPressTimestamp());
+        assertEquals(4_000, button.getReleaseTimestamp());
+        assertEquals(1.0, speed.get(), "inputs missing from the log keep their value");
+        assertEquals(version + 1, changes.getVersion());
+
+        changes.fromLog(table);
+        assertEquals(version + 1, changes.getVersion(), "replaying the same values is not a change");
+
+        table.put("Dashboard/Speed", 3.5);
+        changes.fromLog(table);
+        assertEquals(3.5, speed.get());
+        assertEquals(version + 2, changes.getVersion());
+    }
+}
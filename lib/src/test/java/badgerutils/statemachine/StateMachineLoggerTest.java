@@ -0,0 +1,150 @@
+package badgerutils.statemachine;
+
+import badgerutils.subsystem.RobotState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StateMachineLoggerTest {
+    private final Map<String, Object> outputs = new HashMap<>();
+    private final StateMachineLogger.Output output = new StateMachineLogger.Output() {
+        @Override
+        public void record(String key, int value) {
+            outputs.put(key, value);
+        }
+
+        @Override
+        public void record(String key, String[] value) {
+            outputs.put(key, value.clone());
+        }
+    };
+
+    private StateMachine<RobotState> stateMachine;
+
+    @BeforeEach
+    void setup(){
+        StateGuardCondition<RobotState> eStopGuard = StateGuardCondition.named("latched", (transition) -> false);
+        stateMachine = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                // Guards.anyToState guards every transition out of E_STOP
+                .anyToState(RobotState.E_STOP, eStopGuard)
+                .multipleStatesToMultipleStates(Set.of(), Set.of(RobotState.A_STOP), StateGuardCondition.deny()))
+                .enableLogging("Arm", output);
+    }
+
+    @Test
+    void writesOnlyFromPeriodicTest(){
+        assertTrue(outputs.isEmpty(), "nothing is written before the first periodic()");
+
+        stateMachine.periodic();
+        assertArrayEquals(new String[]{"E_STOP", "A_STOP", "DISABLED", "TELEOP", "AUTONOMOUS", "TEST"}, (String[]) outputs.get("Arm/StateNames"));
+        assertArrayEquals(new String[]{"latched"}, (String[]) outputs.get("Arm/GuardNames"));
+        assertEquals(RobotState.DISABLED.ordinal(), outputs.get("Arm/State"));
+
+        outputs.clear();
+        stateMachine.periodic();
+        assertTrue(outputs.isEmpty(), "nothing is written while nothing changes");
+
+        assertTrue(stateMachine.tryChangeState(RobotState.TELEOP));
+        assertTrue(stateMachine.tryChangeState(RobotState.AUTONOMOUS));
+        assertTrue(outputs.isEmpty());
+        stateMachine.periodic();
+        assertEquals(Map.of("Arm/State", RobotState.AUTONOMOUS.ordinal()), outputs);
+
+        outputs.clear();
+        stateMachine.requestState(RobotState.E_STOP);
+        stateMachine.periodic();
+        assertEquals(Map.of("Arm/State", RobotState.E_STOP.ordinal()), outputs, "a request is written in the cycle it is applied");
+    }
+
+    @Test
+    void recordingTest(){
+        Map<String, Object> recorded = new HashMap<>();
+        StateMachineRecorder.Output recordingOutput = new StateMachineRecorder.Output() {
+            @Override
+            public void record(String key, int value) {
+                recorded.put(key, value);
+            }
+
+            @Override
+            public void record(String key, long value) {
+                recorded.put(key, value);
+            }
+
+            @Override
+            public void record(String key, long[] value) {
+                recorded.put(key, value.clone());
+            }
+
+            @Override
+            public void record(String key, int[] value) {
+                recorded.put(key, value.clone());
+            }
+
+            @Override
+            public void record(String key, boolean[] value) {
+                recorded.put(key, value.clone());
+            }
+
+            @Override
+            public void record(String key, double[] value) {
+                recorded.put(key, value.clone());
+            }
+        };
+        long[] clock = {100};
+        StateMachine<RobotState> machine = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty())
+                .enableRecording("Arm/Replay", () -> clock[0], recordingOutput, () -> clock[0] / 100.0);
+
+        assertTrue(machine.tryChangeState(RobotState.TELEOP));
+        clock[0] = 200;
+        machine.setStateWithoutGuardsOrEdges(RobotState.TEST);
+        machine.periodic();
+        assertEquals(RobotState.DISABLED.ordinal(), recorded.get("Arm/Replay/InitialState"));
+        assertEquals(1, recorded.get("Arm/Replay/InputCount"));
+        assertEquals(0L, recorded.get("Arm/Replay/FirstIndex"));
+        assertArrayEquals(new long[]{100, 200}, (long[]) recorded.get("Arm/Replay/Timestamps"));
+        assertArrayEquals(new int[]{RobotState.TELEOP.ordinal(), RobotState.TEST.ordinal()}, (int[]) recorded.get("Arm/Replay/RequestedStates"));
+        assertArrayEquals(new double[]{1, 2}, (double[]) recorded.get("Arm/Replay/Inputs"));
+        assertArrayEquals(new boolean[]{false, true}, (boolean[]) recorded.get("Arm/Replay/Forced"));
+        assertNull(machine.getRecording(), "entries written through AdvantageKit are not kept");
+
+        recorded.clear();
+        machine.periodic();
+        assertTrue(recorded.isEmpty(), "nothing is written in a cycle without changes");
+
+        assertFalse(machine.tryChangeState(RobotState.TEST));
+        machine.periodic();
+        assertEquals(2L, recorded.get("Arm/Replay/FirstIndex"));
+        assertArrayEquals(new int[]{RobotState.TEST.ordinal()}, (int[]) recorded.get("Arm/Replay/ResultingStates"));
+    }
+
+    @Test
+    void writesRejectionsOnceTest(){
+        stateMachine.periodic();
+        assertTrue(stateMachine.tryChangeState(RobotState.E_STOP));
+        stateMachine.periodic();
+
+        outputs.clear();
+        assertFalse(stateMachine.tryChangeState(RobotState.DISABLED));
+        assertFalse(stateMachine.tryChangeState(RobotState.DISABLED));
+        stateMachine.periodic();
+        assertEquals(Map.of("Arm/RejectedState", RobotState.DISABLED.ordinal(), "Arm/RejectingGuard", 0), outputs);
+
+        outputs.clear();
+        assertFalse(stateMachine.tryChangeState(RobotState.DISABLED));
+        stateMachine.periodic();
+        assertTrue(outputs.isEmpty(), "a repeated rejection is not written again");
+
+        assertFalse(stateMachine.tryChangeState(RobotState.A_STOP));
+        stateMachine.periodic();
+        assertEquals(Map.of("Arm/RejectedState", RobotState.A_STOP.ordinal(), "Arm/RejectingGuard", CompiledGuards.NO_GUARD), outputs);
+    }
+}
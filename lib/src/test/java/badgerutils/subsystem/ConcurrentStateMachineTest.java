@@ -0,0 +1,200 @@
+package badgerutils.subsystem;
+
+import badgerutils.statemachine.ConcurrentStateMachine;
+import badgerutils.statemachine.Edges;
+import badgerutils.statemachine.Guards;
+import badgerutils.statemachine.StateMachine;
+import badgerutils.statemachine.StateTimerWheel;
+import badgerutils.statemachine.StateTransaction;
+import badgerutils.statemachine.TransitionHistory;
+import badgerutils.statemachine.TransitionOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentStateMachineTest {
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 50_000;
+    private static final RobotState[] TARGETS = {RobotState.DISABLED, RobotState.TELEOP, RobotState.AUTONOMOUS, RobotState.TEST};
+
+    private ConcurrentStateMachine<RobotState> stateMachine;
+
+    private final AtomicInteger transitionsInProgress = new AtomicInteger();
+    private final AtomicInteger overlappingTransitions = new AtomicInteger();
+    private final AtomicInteger staleGuardChecks = new AtomicInteger();
+    private final AtomicLong edgesRun = new AtomicLong();
+    private volatile RobotState lastEnteredState;
+
+    @BeforeEach
+    void setup(){
+        Edges<RobotState> edges = new Edges<RobotState>()
+                .anyToAny((transition) -> {
+                    if (transitionsInProgress.incrementAndGet() != 1) overlappingTransitions.incrementAndGet();
+                    if (transition.previousState() != stateMachine.getCurrentState()) staleGuardChecks.incrementAndGet();
+                    edgesRun.incrementAndGet();
+                    lastEnteredState = transition.nextState();
+                    transitionsInProgress.decrementAndGet();
+                });
+
+        Guards<RobotState> guards = new Guards<RobotState>()
+                .anyToAny((transition) -> {
+                    if (transition.previousState() != stateMachine.getCurrentState()) staleGuardChecks.incrementAndGet();
+                    return true;
+                })
+                .anyToState(RobotState.E_STOP, (transition) -> false);
+
+        stateMachine = new ConcurrentStateMachine<>(RobotState.DISABLED, edges, guards);
+    }
+
+    @Test
+    void singleThreadedTransitions(){
+        assertTrue(stateMachine.tryChangeState(RobotState.TELEOP));
+        assertFalse(stateMachine.tryChangeState(RobotState.TELEOP));
+        assertTrue(stateMachine.tryChangeState(RobotState.E_STOP));
+        assertFalse(stateMachine.canChangeState(RobotState.DISABLED));
+        assertEquals(RobotState.E_STOP, stateMachine.getCurrentState());
+        assertEquals(2, edgesRun.get());
+    }
+
+    @Test
+    void wrappedStateMachineTest(){
+        long[] clock = {0};
+        boolean[] forcedDuringEdge = {true};
+        List<RobotState> entered = new ArrayList<>();
+        StateTimerWheel timerWheel = new StateTimerWheel(10_000, 8, () -> clock[0]);
+        StateMachine<RobotState> wrapped = new StateMachine<>(RobotState.DISABLED,
+                new Edges<RobotState>().anyToState(RobotState.AUTONOMOUS, (transition) -> forcedDuringEdge[0] =
+                        stateMachine.setStateWithoutGuardsOrEdges(RobotState.TEST)),
+                new Guards<RobotState>().anyToState(RobotState.E_STOP, (transition) -> false))
+                .addStateListener((transition) -> entered.add(transition.nextState()))
+                .after(RobotState.TELEOP, 0.05, RobotState.DISABLED, timerWheel)
+                .enableHistory(4, () -> clock[0]);
+        stateMachine = new ConcurrentStateMachine<>(wrapped);
+
+        assertTrue(wrapped.tryChangeState(RobotState.TELEOP));
+        assertEquals(RobotState.TELEOP, stateMachine.getCurrentState());
+        clock[0] = 50_000;
+        stateMachine.periodic();
+        assertEquals(RobotState.DISABLED, stateMachine.getCurrentState());
+
+        assertTrue(stateMachine.tryChangeState(RobotState.AUTONOMOUS));
+        assertFalse(forcedDuringEdge[0], "the forced set is rejected while a transition is in progress");
+        assertTrue(stateMachine.setStateWithoutGuardsOrEdges(RobotState.E_STOP));
+        assertFalse(stateMachine.tryChangeState(RobotState.DISABLED));
+
+        assertEquals(List.of(RobotState.TELEOP, RobotState.DISABLED, RobotState.AUTONOMOUS, RobotState.E_STOP), entered);
+        TransitionHistory<RobotState> history = wrapped.getHistory();
+        assertEquals(4, history.size());
+        assertEquals(TransitionOutcome.CHANGED, history.getOutcome(1));
+        assertEquals(TransitionOutcome.FORCED, history.getOutcome(2));
+        assertEquals(TransitionOutcome.GUARD_REJECTED, history.getOutcome(3));
+    }
+
+    @Test
+    void neverBlocksOnClaimTest(){
+        boolean[] allowedDuringEdge = {false};
+        StateMachine<RobotState> wrapped = new StateMachine<>(RobotState.DISABLED,
+                new Edges<RobotState>().anyToState(RobotState.AUTONOMOUS, (transition) -> {
+                    allowedDuringEdge[0] = stateMachine.canChangeState(RobotState.TEST);
+                    stateMachine.periodic();
+                }));
+        stateMachine = new ConcurrentStateMachine<>(wrapped);
+
+        wrapped.requestState(RobotState.TELEOP);
+        assertTrue(stateMachine.tryChangeState(RobotState.AUTONOMOUS));
+        assertTrue(allowedDuringEdge[0], "checks do not need the claim that the edge's transition holds");
+        assertEquals(1, wrapped.getPendingRequestCount(), "periodic defers the request instead of waiting for the claim");
+        assertEquals(RobotState.AUTONOMOUS, stateMachine.getCurrentState());
+
+        stateMachine.periodic();
+        assertEquals(0, wrapped.getPendingRequestCount());
+        assertEquals(RobotState.TELEOP, stateMachine.getCurrentState());
+        assertEquals(EnumSet.complementOf(EnumSet.of(RobotState.TELEOP)), wrapped.allowedNextStates());
+    }
+
+    @Test
+    void transactionClaimsWrappedParticipantsTest(){
+        boolean[] changedDuringCommit = {true};
+        boolean[] committedDuringEdge = {true};
+        StateTransaction[] handoff = new StateTransaction[1];
+        StateMachine<RobotState> wrapped = new StateMachine<>(RobotState.DISABLED,
+                new Edges<RobotState>().anyToState(RobotState.AUTONOMOUS, (transition) -> committedDuringEdge[0] = handoff[0].commit()));
+        stateMachine = new ConcurrentStateMachine<>(wrapped);
+        StateMachine<RobotState> indexer = new StateMachine<>(RobotState.DISABLED,
+                new Edges<RobotState>().anyToState(RobotState.TELEOP, (transition) ->
+                        changedDuringCommit[0] = stateMachine.tryChangeState(RobotState.TEST)));
+        handoff[0] = new StateTransaction()
+                .change(wrapped, RobotState.TELEOP)
+                .change(indexer, RobotState.TELEOP);
+
+        assertTrue(stateMachine.tryChangeState(RobotState.AUTONOMOUS));
+        assertFalse(committedDuringEdge[0], "a commit fails while another transition holds the claim");
+        assertEquals(RobotState.DISABLED, indexer.getCurrentState(), "nothing changes when a claim fails");
+
+        assertTrue(handoff[0].commit());
+        assertFalse(changedDuringCommit[0], "a wrapped participant stays claimed until the commit is done");
+        assertEquals(RobotState.TELEOP, stateMachine.getCurrentState());
+        assertEquals(RobotState.TELEOP, indexer.getCurrentState());
+        assertTrue(stateMachine.tryChangeState(RobotState.TEST), "the claim is released after the commit");
+    }
+
+    @Test
+    void configureAfterWrappingTest(){
+        StateMachine<RobotState> wrapped = new StateMachine<>(RobotState.DISABLED, Guards.empty());
+        stateMachine = new ConcurrentStateMachine<>(wrapped);
+
+        assertThrows(IllegalStateException.class, () -> wrapped.enableHistory(4));
+        assertThrows(IllegalStateException.class, () -> wrapped.after(RobotState.TELEOP, 1, RobotState.DISABLED));
+        assertThrows(IllegalStateException.class, () -> wrapped.addStateListener((transition) -> {}));
+        assertThrows(IllegalStateException.class, () -> new ConcurrentStateMachine<>(wrapped));
+    }
+
+    @Test
+    void stressTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int changed = 0;
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        if (stateMachine.tryChangeState(TARGETS[(i + offset) % TARGETS.length])) changed++;
+                    }
+                    return changed;
+                }));
+            }
+
+            long totalChanged = 0;
+            for (Future<Integer> result : results) {
+                totalChanged += result.get(60, TimeUnit.SECONDS);
+            }
+
+            assertTrue(totalChanged > 0);
+            assertEquals(totalChanged, edgesRun.get(), "every successful transition runs its edges exactly once");
+            assertEquals(0, overlappingTransitions.get(), "transitions never overlap");
+            assertEquals(0, staleGuardChecks.get(), "guards and edges always see the current state");
+            assertEquals(lastEnteredState, stateMachine.getCurrentState());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package badgerutils.subsystem;
+
+import badgerutils.statemachine.Edges;
+import badgerutils.statemachine.Guards;
+import badgerutils.statemachine.StateMachine;
+import badgerutils.statemachine.codegen.Edge;
+import badgerutils.statemachine.codegen.Guard;
+import badgerutils.statemachine.codegen.StateMachineSpec;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GeneratedStateMachineTest {
+
+    @StateMachineSpec(RobotState.class)
+    static class RobotSpec {
+        final List<String> calls = new ArrayList<>();
+        boolean isReady = true;
+        boolean isJammed;
+        boolean isEnabled = true;
+
+        @Edge
+        void countTransition() {
+            calls.add("countTransition");
+        }
+
+        @Guard(from = {"TELEOP", "AUTONOMOUS"})
+        boolean isNotJammed(RobotState previousState, RobotState nextState) {
+            calls.add("isNotJammed " + previousState + " -> " + nextState);
+            return !isJammed;
+        }
+
+        @Guard(from = "DISABLED", to = "TELEOP")
+        boolean isReady() {
+            calls.add("isReady");
+            return isReady;
+        }
+
+        @Guard
+        boolean isEnabled() {
+            calls.add("isEnabled");
+            return isEnabled;
+        }
+
+        @Guard(to = "E_STOP")
+        boolean isNeverStopped() {
+            calls.add("isNeverStopped");
+            return false;
+        }
+
+        @Edge(to = "TELEOP")
+        void startTeleop() {
+            calls.add("startTeleop");
+        }
+
+        @Edge(from = "TELEOP")
+        void stopTeleop(RobotState previousState, RobotState nextState) {
+            calls.add("stopTeleop -> " + nextState);
+        }
+
+        @Edge(from = "DISABLED", to = "TELEOP")
+        void enableTeleop() {
+            calls.add("enableTeleop");
+        }
+    }
+
+    /**
+     * Builds a {@link StateMachine} from the same methods as {@link RobotSpec}, registered in declaration order
+     */
+    private static StateMachine<RobotState> createStateMachine(RobotSpec spec) {
+        return new StateMachine<>(RobotState.DISABLED,
+                new Edges<RobotState>()
+                        .anyToAny(transition -> spec.countTransition())
+                        .anyToState(RobotState.TELEOP, transition -> spec.startTeleop())
+                        .stateToAny(RobotState.TELEOP, transition -> spec.stopTeleop(transition.previousState(), transition.nextState()))
+                        .stateToState(RobotState.DISABLED, RobotState.TELEOP, transition -> spec.enableTeleop()),
+                new Guards<RobotState>()
+                        .multipleStatesToMultipleStates(Set.of(RobotState.TELEOP, RobotState.AUTONOMOUS), Set.of(),
+                                transition -> spec.isNotJammed(transition.previousState(), transition.nextState()))
+                        .stateToState(RobotState.DISABLED, RobotState.TELEOP, transition -> spec.isReady())
+                        .anyToAny(transition -> spec.isEnabled())
+                        // Guards.anyToState registers a 'state to any' guard, so the 'any to state' guard is spelled out
+                        .multipleStatesToMultipleStates(Set.of(), Set.of(RobotState.E_STOP), transition -> spec.isNeverStopped()));
+    }
+
+    @Test
+    void matchesStateMachineTest(){
+        RobotSpec generatedSpec = new RobotSpec();
+        RobotSpec referenceSpec = new RobotSpec();
+        RobotSpecStateMachine generated = new RobotSpecStateMachine(generatedSpec, RobotState.DISABLED);
+        StateMachine<RobotState> reference = createStateMachine(referenceSpec);
+
+        RobotState[] targets = {
+                RobotState.TELEOP, RobotState.TELEOP, RobotState.AUTONOMOUS, RobotState.E_STOP, RobotState.DISABLED,
+                RobotState.TELEOP, RobotState.TEST, RobotState.AUTONOMOUS, RobotState.DISABLED, RobotState.A_STOP
+        };
+        for (int step = 0; step < targets.length * 4; step++) {
+            for (RobotSpec spec : List.of(generatedSpec, referenceSpec)) {
+                spec.isReady = step % 3 != 0;
+                spec.isJammed = step % 5 == 2;
+                spec.isEnabled = step % 7 != 6;
+            }
+            RobotState target = targets[step % targets.length];
+
+            assertEquals(reference.canChangeState(target), generated.canChangeState(target), "canChangeState at step " + step);
+            assertEquals(reference.tryChangeState(target), generated.tryChangeState(target), "tryChangeState at step " + step);
+            assertEquals(reference.getCurrentState(), generated.getCurrentState(), "state at step " + step);
+            assertEquals(referenceSpec.calls, generatedSpec.calls, "calls at step " + step);
+        }
+
+        reference.setStateWithoutGuardsOrEdges(RobotState.E_STOP);
+        generated.setStateWithoutGuardsOrEdges(RobotState.E_STOP);
+        assertEquals(reference.tryChangeState(RobotState.DISABLED), generated.tryChangeState(RobotState.DISABLED));
+        assertEquals(referenceSpec.calls, generatedSpec.calls);
+    }
+}
@@ -0,0 +1,94 @@
+package badgerutils.subsystem;
+
+import badgerutils.statemachine.Edges;
+import badgerutils.statemachine.Guards;
+import badgerutils.statemachine.StateMachine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StateMachineAllocationTest {
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 100_000;
+    /**
+     * Absorbs allocations outside the measured calls, such as a new TLAB, while still catching one allocation per call
+     */
+    private static final long MAX_ALLOCATED_BYTES = 1024;
+
+    private final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private StateMachine<RobotState> stateMachine;
+    private int edgeCount, guardCount;
+
+    @BeforeEach
+    void setup(){
+        edgeCount = 0;
+        guardCount = 0;
+
+        Edges<RobotState> edges = new Edges<RobotState>()
+                .stateToMultipleStates(RobotState.DISABLED, Set.of(RobotState.AUTONOMOUS, RobotState.TELEOP, RobotState.TEST), (state) -> edgeCount++)
+                .anyToState(RobotState.DISABLED, state -> edgeCount++)
+                .anyToAny(state -> edgeCount++);
+
+        Guards<RobotState> guards = new Guards<RobotState>()
+                .anyToState(RobotState.E_STOP, (state) -> false)
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, (state) -> ++guardCount > 0)
+                .anyToAny((state) -> true);
+
+        stateMachine = new StateMachine<>(RobotState.DISABLED, edges, guards);
+    }
+
+    @Test
+    void guardsEvaluatedOncePerTryChangeState(){
+        assertTrue(stateMachine.tryChangeState(RobotState.TELEOP));
+        assertEquals(1, guardCount);
+        assertEquals(2, edgeCount);
+    }
+
+    @Test
+    void tryChangeStateDoesNotAllocate(){
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            toggleState();
+        }
+
+        long allocated = allocatedBytes(this::toggleState);
+
+        assertTrue(allocated < MAX_ALLOCATED_BYTES, allocated + " bytes allocated by " + ITERATIONS + " calls to tryChangeState");
+    }
+
+    @Test
+    void canChangeStateDoesNotAllocate(){
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            checkStates();
+        }
+
+        long allocated = allocatedBytes(this::checkStates);
+
+        assertTrue(allocated < MAX_ALLOCATED_BYTES, allocated + " bytes allocated by " + ITERATIONS + " calls to canChangeState");
+    }
+
+    private long allocatedBytes(Runnable call) {
+        long threadId = Thread.currentThread().getId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.run();
+        }
+        return threadBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private void toggleState() {
+        RobotState next = stateMachine.getCurrentState() == RobotState.DISABLED ? RobotState.TELEOP : RobotState.DISABLED;
+        assertTrue(stateMachine.tryChangeState(next));
+    }
+
+    private void checkStates() {
+        assertTrue(stateMachine.canChangeState(RobotState.TELEOP));
+        assertFalse(stateMachine.canChangeState(RobotState.DISABLED));
+    }
+}
@@ -1,15 +1,37 @@
 package badgerutils.subsystem;
 
+import badgerutils.statemachine.CompiledEdges;
+import badgerutils.statemachine.CompiledGuards;
 import badgerutils.statemachine.Edges;
 import badgerutils.statemachine.Guards;
+import badgerutils.statemachine.ReplayLog;
+import badgerutils.statemachine.ReplayResult;
+import badgerutils.statemachine.StateEdge;
+import badgerutils.statemachine.StateGuardCondition;
+import badgerutils.statemachine.StateHierarchy;
 import badgerutils.statemachine.StateMachine;
+import badgerutils.statemachine.StateMachineProfiler;
+import badgerutils.statemachine.StateMachineReplay;
+import badgerutils.statemachine.StateTimerWheel;
+import badgerutils.statemachine.StateTransaction;
+import badgerutils.statemachine.TransitionHistory;
+import badgerutils.statemachine.TransitionOutcome;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class StateMachineTest {
@@ -104,4 +126,503 @@ public class StateMachineTest {
     void normalGuardTest(){
 
     }
+
+    @Test
+    void allowedNextStatesTest(){
+        assertEquals(EnumSet.complementOf(EnumSet.of(RobotState.DISABLED)), stateMachine.allowedNextStates());
+
+        stateMachine.setStateWithoutGuardsOrEdges(RobotState.A_STOP);
+        EnumSet<RobotState> allowed = EnumSet.of(RobotState.E_STOP, RobotState.DISABLED, RobotState.TELEOP, RobotState.TEST);
+        assertEquals(allowed, stateMachine.allowedNextStates());
+
+        long mask = 0;
+        for (RobotState state : allowed) mask |= 1L << state.ordinal();
+        assertEquals(mask, stateMachine.allowedNextStatesMask());
+
+        stateMachine.setStateWithoutGuardsOrEdges(RobotState.E_STOP);
+        assertTrue(stateMachine.allowedNextStates(EnumSet.allOf(RobotState.class)).isEmpty());
+    }
+
+    @Test
+    void staticGuardTest(){
+        int[] guardCalls = {0};
+        StateMachine<RobotState> staticMachine = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .anyToAny((state) -> ++guardCalls[0] > 0)
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, StateGuardCondition.deny())
+                .stateToState(RobotState.DISABLED, RobotState.TEST, StateGuardCondition.allow()));
+
+        assertFalse(staticMachine.canChangeState(RobotState.TELEOP));
+        assertEquals(0, guardCalls[0]);
+
+        assertTrue(staticMachine.tryChangeState(RobotState.TEST));
+        assertEquals(1, guardCalls[0]);
+    }
+
+    @Test
+    void targetIndependentGuardTest(){
+        int[] independentCalls = {0};
+        int[] dependentCalls = {0};
+        StateMachine<RobotState> passMachine = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .anyToAny(StateGuardCondition.targetIndependent((state) -> ++independentCalls[0] > 0))
+                .anyToAny((state) -> ++dependentCalls[0] > 0));
+
+        assertEquals(EnumSet.complementOf(EnumSet.of(RobotState.DISABLED)), passMachine.allowedNextStates());
+        assertEquals(1, independentCalls[0]);
+        assertEquals(5, dependentCalls[0]);
+
+        passMachine.allowedNextStatesMask();
+        assertEquals(2, independentCalls[0]);
+        assertEquals(10, dependentCalls[0]);
+
+        assertTrue(passMachine.tryChangeState(RobotState.TELEOP));
+        assertEquals(3, independentCalls[0]);
+    }
+
+    @Test
+    void asyncEdgeTest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<RobotState> asyncEntered = new ArrayList<>();
+        StateMachine<RobotState> asyncMachine = new StateMachine<>(RobotState.DISABLED, new Edges<RobotState>()
+                .anyToState(RobotState.TELEOP, StateEdge.async((state) -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    asyncEntered.add(state.nextState());
+                }))
+                .anyToState(RobotState.DISABLED, StateEdge.async((state) -> asyncEntered.add(state.nextState()))));
+
+        assertTrue(asyncMachine.tryChangeState(RobotState.TELEOP));
+        assertTrue(asyncMachine.tryChangeState(RobotState.DISABLED));
+        assertEquals(RobotState.DISABLED, asyncMachine.getCurrentState());
+        assertFalse(asyncMachine.isTransitionSettled());
+
+        release.countDown();
+        asyncMachine.getTransitionFuture().join();
+        assertTrue(asyncMachine.isTransitionSettled());
+        assertEquals(List.of(RobotState.TELEOP, RobotState.DISABLED), asyncEntered);
+    }
+
+    @Test
+    void profilerTest(){
+        long[] clock = {0};
+        StateGuardCondition<RobotState> eStopGuard = (state) -> {
+            clock[0] += 300;
+            return false;
+        };
+        StateEdge<RobotState> eStopEdge = StateEdge.named("latch e-stop", (state) -> {
+            clock[0] += 5_000;
+            eStopped = true;
+        });
+        Edges<RobotState> edges = new Edges<RobotState>()
+                .anyToAny((state) -> {})
+                .anyToState(RobotState.E_STOP, eStopEdge);
+        Guards<RobotState> guards = new Guards<RobotState>()
+                .anyToAny((state) -> true)
+                .anyToAny((state) -> true)
+                .anyToState(RobotState.E_STOP, eStopGuard);
+        StateMachine<RobotState> profiled = new StateMachine<>(RobotState.DISABLED, edges, guards)
+                .enableProfiling("StateMachineTest", 1, () -> clock[0]);
+        StateMachineProfiler<RobotState> profiler = profiled.getProfiler();
+
+        assertTrue(profiled.tryChangeState(RobotState.E_STOP));
+        assertFalse(profiled.tryChangeState(RobotState.TELEOP));
+        assertFalse(profiled.tryChangeState(RobotState.E_STOP));
+
+        assertEquals(1, profiler.getTransitionCount());
+        assertEquals(2, profiler.getRejectionCount());
+        assertEquals(1, profiler.getGuardRejections(profiler.getGuardId(eStopGuard)));
+        assertEquals(1, profiler.getEdgeCalls(profiler.getEdgeId(eStopEdge)));
+        assertEquals(300, profiler.getGuardNanos(profiler.getGuardId(eStopGuard)));
+        assertEquals(300, profiler.getGuardMaxNanos(profiler.getGuardId(eStopGuard)));
+        assertEquals(5_000, profiler.getEdgeNanos(profiler.getEdgeId(eStopEdge)));
+        assertEquals(5_000, profiler.getEdgeMaxNanos(profiler.getEdgeId(eStopEdge)));
+        assertEquals(-1, profiler.getGuardId((state) -> true));
+
+        CompiledGuards<RobotState> compiledGuards = guards.compile(RobotState.class);
+        assertEquals("E_STOP -> any", compiledGuards.getGuardName(compiledGuards.getGuardId(eStopGuard)));
+        assertEquals(Set.of("E_STOP -> any", "any -> any", "any -> any #2"), Set.of(compiledGuards.getGuardName(0),
+                compiledGuards.getGuardName(1), compiledGuards.getGuardName(2)));
+        CompiledEdges<RobotState> compiledEdges = edges.compile(RobotState.class);
+        assertEquals("latch e-stop", compiledEdges.getEdgeName(compiledEdges.getEdgeId(eStopEdge)));
+    }
+
+    @Test
+    void adaptiveGuardOrderTest(){
+        long[] clock = {0};
+        StateGuardCondition<RobotState> expensive = (state) -> {
+            clock[0] += 20_000;
+            return true;
+        };
+        StateGuardCondition<RobotState> cheap = (state) -> {
+            clock[0] += 100;
+            return false;
+        };
+
+        StateMachine<RobotState> adaptive = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, expensive)
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, cheap))
+                .enableAdaptiveGuardOrdering(32, () -> clock[0]);
+        StateMachine<RobotState> pinned = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, StateGuardCondition.pinned(expensive))
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, cheap))
+                .enableAdaptiveGuardOrdering(32, () -> clock[0]);
+
+        for (int i = 0; i < 64; i++) {
+            assertFalse(adaptive.canChangeState(RobotState.TELEOP));
+            assertFalse(pinned.canChangeState(RobotState.TELEOP));
+        }
+
+        assertArrayEquals(new int[]{1, 0}, adaptive.getAdaptiveGuardOrder().getOrder(RobotState.DISABLED, RobotState.TELEOP));
+        assertEquals(1, adaptive.getAdaptiveGuardOrder().getReorderCount());
+        assertEquals(1.0, adaptive.getAdaptiveGuardOrder().getRejectionRate(1));
+        assertEquals(20_000.0, adaptive.getAdaptiveGuardOrder().getMeanNanos(0));
+        assertArrayEquals(new int[]{0, 1}, pinned.getAdaptiveGuardOrder().getOrder(RobotState.DISABLED, RobotState.TELEOP));
+        assertEquals(0, pinned.getAdaptiveGuardOrder().getReorderCount());
+
+        assertThrows(IllegalStateException.class, () -> adaptive.enableProfiling("StateMachineTest", 1));
+    }
+
+    @Test
+    void pinnedStaticGuardTest(){
+        int[] guardCalls = {0};
+        StateMachine<RobotState> pinned = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .anyToAny((state) -> ++guardCalls[0] > 0)
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, StateGuardCondition.pinned(StateGuardCondition.<RobotState>deny())));
+
+        assertFalse(pinned.canChangeState(RobotState.TELEOP));
+        assertEquals(0, guardCalls[0]);
+    }
+
+    @Test
+    void timeoutTest(){
+        long[] clock = {0};
+        StateTimerWheel timerWheel = new StateTimerWheel(10_000, 8, () -> clock[0]);
+        StateMachine<RobotState> timed = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty())
+                .after(RobotState.TELEOP, 0.05, RobotState.DISABLED, timerWheel);
+
+        assertTrue(timed.tryChangeState(RobotState.TELEOP));
+        clock[0] = 40_000;
+        timed.periodic();
+        assertEquals(RobotState.TELEOP, timed.getCurrentState());
+        clock[0] = 50_000;
+        timed.periodic();
+        assertEquals(RobotState.DISABLED, timed.getCurrentState());
+
+        assertTrue(timed.tryChangeState(RobotState.TELEOP));
+        clock[0] = 70_000;
+        assertTrue(timed.tryChangeState(RobotState.TEST));
+        clock[0] = 500_000;
+        timed.periodic();
+        assertEquals(RobotState.TEST, timed.getCurrentState());
+
+        assertThrows(IllegalArgumentException.class, () -> timed.after(RobotState.TEST, -1, RobotState.DISABLED, timerWheel));
+        assertThrows(IllegalArgumentException.class, () -> timed.after(RobotState.TEST, Double.NaN, RobotState.DISABLED, timerWheel));
+        assertThrows(IllegalArgumentException.class, () -> timed.after(RobotState.TEST, Double.POSITIVE_INFINITY, RobotState.DISABLED, timerWheel));
+    }
+
+    @Test
+    void requestStateTest(){
+        stateMachine.requestState(RobotState.TELEOP, 1);
+        stateMachine.requestState(RobotState.AUTONOMOUS, 0);
+        assertEquals(2, stateMachine.getPendingRequestCount());
+        assertEquals(1, stateMachine.getCoalescedRequestCount());
+        assertEquals(RobotState.DISABLED, stateMachine.getCurrentState());
+
+        stateMachine.periodic();
+        assertEquals(RobotState.TELEOP, stateMachine.getCurrentState());
+        assertEquals(RobotState.TELEOP, enabledTo);
+        assertEquals(0, stateMachine.getPendingRequestCount());
+
+        stateMachine.requestState(RobotState.TEST, 2);
+        stateMachine.requestState(RobotState.DISABLED, 2);
+        stateMachine.periodic();
+        assertEquals(RobotState.DISABLED, stateMachine.getCurrentState());
+        assertEquals(2, stateMachine.getCoalescedRequestCount());
+
+        stateMachine.requestState(RobotState.AUTONOMOUS);
+        stateMachine.requestState(RobotState.TEST, 1);
+        stateMachine.periodic();
+        assertEquals(RobotState.TEST, stateMachine.getCurrentState());
+        assertEquals(3, stateMachine.getCoalescedRequestCount());
+
+        stateMachine.periodic();
+        assertEquals(RobotState.TEST, stateMachine.getCurrentState());
+        assertEquals(0, stateMachine.getPendingRequestCount());
+    }
+
+    @Test
+    void stateEventsTest(){
+        List<RobotState> listened = new ArrayList<>();
+        stateMachine.addStateListener(transition -> listened.add(transition.nextState()));
+
+        assertTrue(stateMachine.tryChangeState(RobotState.TELEOP));
+        assertTrue(stateMachine.hasEnteredState(RobotState.TELEOP));
+        stateMachine.periodic();
+        assertTrue(stateMachine.hasEnteredState(RobotState.TELEOP));
+        assertTrue(stateMachine.hasEnteredState(RobotState.TELEOP));
+        assertTrue(stateMachine.hasTransitioned(RobotState.DISABLED, RobotState.TELEOP));
+        assertFalse(stateMachine.hasTransitioned(RobotState.TELEOP, RobotState.DISABLED));
+        stateMachine.periodic();
+        assertFalse(stateMachine.hasEnteredState(RobotState.TELEOP));
+        assertFalse(stateMachine.hasTransitioned(RobotState.DISABLED, RobotState.TELEOP));
+
+        stateMachine.requestState(RobotState.DISABLED);
+        stateMachine.periodic();
+        assertTrue(stateMachine.hasEnteredState(RobotState.DISABLED));
+        assertTrue(stateMachine.hasTransitioned(RobotState.TELEOP, RobotState.DISABLED));
+        assertFalse(stateMachine.hasEnteredState(RobotState.TELEOP));
+        stateMachine.periodic();
+        assertFalse(stateMachine.hasEnteredState(RobotState.DISABLED));
+
+        stateMachine.setStateWithoutGuardsOrEdges(RobotState.TEST);
+        stateMachine.setStateWithoutGuardsOrEdges(RobotState.DISABLED);
+        stateMachine.periodic();
+        assertTrue(stateMachine.hasEnteredState(RobotState.TEST));
+        assertTrue(stateMachine.hasTransitioned(RobotState.TEST, RobotState.DISABLED));
+        assertEquals(RobotState.DISABLED, stateMachine.getCurrentState());
+
+        assertEquals(List.of(RobotState.TELEOP, RobotState.DISABLED, RobotState.TEST, RobotState.DISABLED), listened);
+    }
+
+    @Test
+    void transactionTest(){
+        boolean[] shooterReady = {false};
+        List<RobotState> intakeStatesSeen = new ArrayList<>();
+        StateMachine<RobotState> intake = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty());
+        StateMachine<RobotState> shooter = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, (state) -> {
+                    intakeStatesSeen.add(intake.getCurrentState());
+                    return shooterReady[0];
+                }));
+
+        StateTransaction handoff = new StateTransaction()
+                .change(shooter, RobotState.TELEOP)
+                .change(intake, RobotState.AUTONOMOUS);
+
+        assertFalse(handoff.commit());
+        assertEquals(RobotState.DISABLED, intake.getCurrentState());
+        assertEquals(RobotState.DISABLED, shooter.getCurrentState());
+
+        shooterReady[0] = true;
+        assertTrue(handoff.canCommit());
+        assertTrue(handoff.commit());
+        assertEquals(RobotState.AUTONOMOUS, intake.getCurrentState());
+        assertEquals(RobotState.TELEOP, shooter.getCurrentState());
+        assertEquals(List.of(RobotState.DISABLED, RobotState.DISABLED, RobotState.DISABLED), intakeStatesSeen);
+    }
+
+    @Test
+    void transactionSameStateTest(){
+        int[] edgesRun = {0};
+        StateMachine<RobotState> intake = new StateMachine<>(RobotState.TELEOP,
+                new Edges<RobotState>().anyToAny((transition) -> edgesRun[0]++));
+        StateMachine<RobotState> shooter = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty());
+
+        StateTransaction handoff = new StateTransaction()
+                .change(intake, RobotState.TELEOP)
+                .change(shooter, RobotState.TELEOP);
+
+        assertTrue(handoff.canCommit(), "a participant already in its next state does not block the transaction");
+        assertTrue(handoff.commit());
+        assertEquals(RobotState.TELEOP, shooter.getCurrentState());
+        assertEquals(0, edgesRun[0], "a participant already in its next state is left alone");
+    }
+
+    @Test
+    void transactionThrowingEdgeTest(){
+        StateMachine<RobotState> intake = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty());
+        StateMachine<RobotState> shooter = new StateMachine<>(RobotState.DISABLED, new Edges<RobotState>()
+                .anyToState(RobotState.TELEOP, (transition) -> {
+                    throw new IllegalStateException("shooter fault");
+                }));
+        StateMachine<RobotState> indexer = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty());
+
+        StateTransaction handoff = new StateTransaction()
+                .change(indexer, RobotState.TELEOP)
+                .change(shooter, RobotState.TELEOP)
+                .change(intake, RobotState.TELEOP);
+
+        assertThrows(IllegalStateException.class, handoff::commit);
+        assertEquals(RobotState.TELEOP, intake.getCurrentState(), "participants applied before the edge threw keep their new state");
+        assertEquals(RobotState.DISABLED, shooter.getCurrentState());
+        assertEquals(RobotState.DISABLED, indexer.getCurrentState());
+    }
+
+    @Test
+    void replayTest() throws IOException {
+        ReplayLog<RobotState> log = new ReplayLog<>(RobotState.DISABLED, 1)
+                .record(0, RobotState.TELEOP, RobotState.DISABLED, 0)
+                .record(20, RobotState.TELEOP, RobotState.TELEOP, 1)
+                .record(40, RobotState.DISABLED, RobotState.DISABLED, 0);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        log.writeTo(out);
+        ReplayLog<RobotState> loaded = ReplayLog.readFrom(new ByteArrayInputStream(out.toByteArray()), RobotState.class);
+        assertEquals(3, loaded.size());
+        assertEquals(1.0, loaded.getInput(1, 0));
+        assertFalse(loaded.isForced(1));
+
+        ReplayResult<RobotState> matching = new StateMachineReplay<RobotState>(inputs -> new StateMachine<>(RobotState.DISABLED,
+                new Guards<RobotState>().stateToState(RobotState.DISABLED, RobotState.TELEOP, (state) -> inputs.getBoolean(0))))
+                .run(loaded);
+        assertTrue(matching.matches());
+        assertEquals(3, matching.requestCount());
+
+        ReplayResult<RobotState> diverging = new StateMachineReplay<RobotState>(inputs -> new StateMachine<>(RobotState.DISABLED,
+                Guards.<RobotState>empty()))
+                .run(loaded);
+        assertEquals(1, diverging.divergences().size());
+        assertEquals(0, diverging.divergences().get(0).index());
+        assertEquals(RobotState.TELEOP, diverging.divergences().get(0).actualState());
+    }
+
+    @Test
+    void recordingTest(){
+        long[] clock = {0};
+        boolean[] ready = {false};
+        StateTimerWheel timerWheel = new StateTimerWheel(10_000, 8, () -> clock[0]);
+        ReplayLog<RobotState> log = new ReplayLog<>(RobotState.DISABLED, 1);
+        StateMachine<RobotState> recorded = new StateMachine<>(RobotState.DISABLED,
+                new Guards<RobotState>().stateToState(RobotState.DISABLED, RobotState.TELEOP, (state) -> ready[0]))
+                .after(RobotState.TELEOP, 0.05, RobotState.DISABLED, timerWheel)
+                .enableRecording(log, () -> clock[0], () -> ready[0] ? 1 : 0);
+        assertEquals(log, recorded.getRecording());
+
+        assertFalse(recorded.tryChangeState(RobotState.TELEOP));
+        ready[0] = true;
+        recorded.requestState(RobotState.TELEOP);
+        recorded.periodic();
+        clock[0] = 50_000;
+        recorded.periodic();
+        assertEquals(RobotState.DISABLED, recorded.getCurrentState(), "the timeout fired");
+        recorded.setStateWithoutGuardsOrEdges(RobotState.TEST);
+
+        assertEquals(4, log.size(), "rejections, requests, timeouts and forced changes are all recorded");
+        assertEquals(RobotState.DISABLED, log.getResultingState(0));
+        assertEquals(0.0, log.getInput(0, 0));
+        assertEquals(RobotState.TELEOP, log.getResultingState(1));
+        assertEquals(1.0, log.getInput(1, 0));
+        assertEquals(RobotState.DISABLED, log.getRequestedState(2));
+        assertEquals(50_000L, log.getTimestamp(2));
+        assertTrue(log.isForced(3));
+
+        ReplayResult<RobotState> result = new StateMachineReplay<RobotState>(inputs -> new StateMachine<>(RobotState.DISABLED,
+                new Guards<RobotState>().stateToState(RobotState.DISABLED, RobotState.TELEOP, (state) -> inputs.getBoolean(0))))
+                .run(log);
+        assertTrue(result.matches());
+        assertEquals(4, result.requestCount());
+
+        assertThrows(IllegalArgumentException.class, () -> recorded.enableRecording(new ReplayLog<>(RobotState.DISABLED, 0), () -> 0),
+                "a log must start at the current state");
+    }
+
+    @Test
+    void historyTest(){
+        long[] clock = {0};
+        stateMachine.enableHistory(3, () -> clock[0]);
+
+        clock[0] = 100;
+        assertTrue(stateMachine.tryChangeState(RobotState.TELEOP));
+        clock[0] = 300;
+        assertTrue(stateMachine.tryChangeState(RobotState.E_STOP));
+        clock[0] = 350;
+        assertFalse(stateMachine.tryChangeState(RobotState.TELEOP));
+        clock[0] = 400;
+        stateMachine.setStateWithoutGuardsOrEdges(RobotState.DISABLED);
+
+        TransitionHistory<RobotState> history = stateMachine.getHistory();
+        assertEquals(3, history.size());
+        assertEquals(RobotState.TELEOP, history.getPreviousState(0));
+        assertEquals(TransitionOutcome.CHANGED, history.getOutcome(0));
+        assertEquals(TransitionOutcome.GUARD_REJECTED, history.getOutcome(1));
+        assertEquals(0, history.getRejectingGuard(1));
+        assertEquals(TransitionOutcome.FORCED, history.getOutcome(2));
+
+        clock[0] = 500;
+        assertEquals(100, history.getTimeInState(RobotState.E_STOP, 300));
+        assertEquals(100, history.getTimeInState(RobotState.DISABLED, 300));
+        assertEquals(100, history.getTimeInState(RobotState.TELEOP, 300));
+
+        StateMachine<RobotState> defaultClock = new StateMachine<>(RobotState.DISABLED, Guards.<RobotState>empty())
+                .enableHistory(2);
+        assertTrue(defaultClock.tryChangeState(RobotState.TELEOP));
+        assertTrue(defaultClock.getHistory().getTimestamp(0) >= 0);
+    }
+
+    @Test
+    void hierarchyTest(){
+        List<String> ran = new ArrayList<>();
+        StateHierarchy<RobotState> hierarchy = new StateHierarchy<RobotState>()
+                .addChildren(RobotState.DISABLED, Set.of(RobotState.E_STOP, RobotState.A_STOP))
+                .onExit(RobotState.DISABLED, (state) -> ran.add("exit DISABLED"))
+                .onExit(RobotState.A_STOP, (state) -> ran.add("exit A_STOP"))
+                .onEntry(RobotState.DISABLED, (state) -> ran.add("enter DISABLED"))
+                .onEntry(RobotState.E_STOP, (state) -> ran.add("enter E_STOP"));
+        Edges<RobotState> edges = new Edges<RobotState>()
+                .stateToAny(RobotState.DISABLED, (state) -> ran.add("DISABLED to any"))
+                .multipleStatesToState(Set.of(RobotState.E_STOP, RobotState.DISABLED), RobotState.TEST, (state) -> ran.add("stopped to TEST"));
+        Guards<RobotState> guards = new Guards<RobotState>()
+                .stateToState(RobotState.DISABLED, RobotState.AUTONOMOUS, (state) -> false);
+
+        StateMachine<RobotState> nested = new StateMachine<>(RobotState.TELEOP, edges, guards, hierarchy);
+
+        assertTrue(nested.tryChangeState(RobotState.A_STOP));
+        assertEquals(List.of("enter DISABLED"), ran);
+
+        ran.clear();
+        assertFalse(nested.canChangeState(RobotState.AUTONOMOUS));
+        assertTrue(nested.tryChangeState(RobotState.E_STOP));
+        assertEquals(List.of("exit A_STOP", "enter E_STOP"), ran, "DISABLED is not exited by a move between its children");
+
+        ran.clear();
+        assertTrue(nested.tryChangeState(RobotState.TEST));
+        assertEquals(List.of("exit DISABLED", "stopped to TEST", "DISABLED to any"), ran, "each rule runs once per transition");
+    }
+
+    @Test
+    void parentToChildTest(){
+        List<String> ran = new ArrayList<>();
+        StateHierarchy<RobotState> hierarchy = new StateHierarchy<RobotState>()
+                .addChildren(RobotState.DISABLED, Set.of(RobotState.E_STOP))
+                .onExit(RobotState.DISABLED, (state) -> ran.add("exit DISABLED"))
+                .onEntry(RobotState.DISABLED, (state) -> ran.add("enter DISABLED"))
+                .onEntry(RobotState.E_STOP, (state) -> ran.add("enter E_STOP"));
+        Edges<RobotState> edges = new Edges<RobotState>()
+                .stateToAny(RobotState.DISABLED, (state) -> ran.add("DISABLED to any"))
+                .anyToState(RobotState.DISABLED, (state) -> ran.add("any to DISABLED"))
+                .stateToState(RobotState.DISABLED, RobotState.E_STOP, (state) -> ran.add("DISABLED to E_STOP"))
+                .stateToState(RobotState.E_STOP, RobotState.DISABLED, (state) -> ran.add("E_STOP to DISABLED"));
+
+        StateMachine<RobotState> nested = new StateMachine<>(RobotState.DISABLED, edges, Guards.empty(), hierarchy);
+
+        assertTrue(nested.tryChangeState(RobotState.E_STOP));
+        assertEquals(List.of("DISABLED to E_STOP", "enter E_STOP"), ran, "DISABLED is not exited by entering its child");
+
+        ran.clear();
+        assertTrue(nested.tryChangeState(RobotState.DISABLED));
+        assertEquals(List.of("E_STOP to DISABLED"), ran, "DISABLED is not entered by leaving its child");
+    }
+
+    @Test
+    void memoizedGuardTest(){
+        int[] guardCalls = {0};
+        long[] cycle = {0};
+        StateMachine<RobotState> memoized = new StateMachine<>(RobotState.DISABLED, new Guards<RobotState>()
+                .stateToState(RobotState.DISABLED, RobotState.TELEOP, (state) -> ++guardCalls[0] > 0))
+                .enableGuardMemoization(() -> cycle[0]);
+
+        assertTrue(memoized.canChangeState(RobotState.TELEOP));
+        assertTrue(memoized.canChangeState(RobotState.TELEOP));
+        assertEquals(1, guardCalls[0]);
+
+        cycle[0]++;
+        assertTrue(memoized.canChangeState(RobotState.TELEOP));
+        assertEquals(2, guardCalls[0]);
+
+        memoized.invalidateGuardCache();
+        assertTrue(memoized.tryChangeState(RobotState.TELEOP));
+        assertEquals(3, guardCalls[0]);
+    }
 }
@@ -0,0 +1,60 @@
+package badgerutils.triggers;
+
+import badgerutils.triggers.RobotModeSnapshot.Mode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RobotModeFlagsTest {
+    @Test
+    void modeTest(){
+        for (Mode mode : Mode.values()) {
+            int enabled = RobotModeFlags.pack(mode, true, false, false, false);
+            int disabled = RobotModeFlags.pack(mode, false, false, false, false);
+
+            assertEquals(mode, RobotModeFlags.getMode(enabled));
+            assertEquals(mode, RobotModeFlags.getMode(disabled));
+            assertTrue(RobotModeFlags.isEnabled(enabled));
+            assertFalse(RobotModeFlags.isEnabled(disabled));
+            for (Mode other : Mode.values()) {
+                assertEquals(other == mode, RobotModeFlags.isEnabled(enabled, other));
+                assertFalse(RobotModeFlags.isEnabled(disabled, other), "a disabled robot is not enabled in any mode");
+            }
+        }
+    }
+
+    @Test
+    void allianceTest(){
+        int red = RobotModeFlags.pack(Mode.TELEOP, true, true, true, false);
+        int blue = RobotModeFlags.pack(Mode.TELEOP, true, true, false, false);
+        int missing = RobotModeFlags.pack(Mode.TELEOP, true, false, false, false);
+
+        assertTrue(RobotModeFlags.isRedAlliance(red));
+        assertFalse(RobotModeFlags.isRedAlliance(blue));
+        assertTrue(RobotModeFlags.isRedAlliance(missing), "the alliance is red while it is not present");
+        assertTrue(RobotModeFlags.isAlliancePresent(red));
+        assertTrue(RobotModeFlags.isAlliancePresent(blue));
+        assertFalse(RobotModeFlags.isAlliancePresent(missing));
+        assertEquals(missing, RobotModeFlags.pack(Mode.TELEOP, true, false, true, false),
+                "red is ignored while the alliance is not present");
+    }
+
+    @Test
+    void flagsAreIndependentTest(){
+        int fms = RobotModeFlags.pack(Mode.AUTONOMOUS, false, true, false, true);
+
+        assertTrue(RobotModeFlags.isFMSAttached(fms));
+        assertFalse(RobotModeFlags.isFMSAttached(RobotModeFlags.pack(Mode.AUTONOMOUS, false, true, false, false)));
+        assertEquals(Mode.AUTONOMOUS, RobotModeFlags.getMode(fms));
+        assertFalse(RobotModeFlags.isEnabled(fms));
+        assertFalse(RobotModeFlags.isRedAlliance(fms));
+
+        int all = RobotModeFlags.pack(Mode.TEST, true, true, true, true);
+        assertEquals(Mode.TEST, RobotModeFlags.getMode(all));
+        assertTrue(RobotModeFlags.isEnabled(all, Mode.TEST));
+        assertTrue(RobotModeFlags.isRedAlliance(all));
+        assertTrue(RobotModeFlags.isFMSAttached(all));
+    }
+}